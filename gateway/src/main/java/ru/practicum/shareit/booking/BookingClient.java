@@ -3,29 +3,55 @@ package ru.practicum.shareit.booking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookingRequestDTO;
 import ru.practicum.shareit.booking.dto.StatusBook;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private static final long NO_TIMEOUT = -1;
+
+    private final URI ownerEventsUri;
+    private final HttpClient eventsClient;
+    private final Duration eventsResponseTimeout;
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         @Value("${shareit-server.events.connect-timeout:5s}") Duration eventsConnectTimeout,
+                         @Value("${shareit-server.events.response-timeout:10s}") Duration eventsResponseTimeout) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
                         .build()
         );
+        this.ownerEventsUri = URI.create(serverUrl + API_PREFIX + "/owner/events");
+        this.eventsClient = HttpClient.newBuilder()
+                .connectTimeout(eventsConnectTimeout)
+                .build();
+        this.eventsResponseTimeout = eventsResponseTimeout;
     }
 
     public ResponseEntity<List<BookingRequestDTO>> getUserBookings(long userId, StatusBook state) {
@@ -51,4 +77,62 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", ownerId, params, null);
     }
 
+    public ResponseEntity<Object> getAvailability(long itemId, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> params = Map.of("itemId", itemId, "start", start, "end", end);
+        return get("/availability?itemId={itemId}&start={start}&end={end}", null, params);
+    }
+
+    /**
+     * Поток событий броней владельца передается клиенту как есть. Соединение с сервером держится всю подписку,
+     * поэтому запрос идет через отдельный HttpClient, а не через ограниченный пул RestTemplate, и байты
+     * копирует виртуальный поток. Время жизни подписки ограничивает сервер: когда он закрывает поток,
+     * закрывается и ответ клиенту. Ошибка сервера пробрасывается как RestClientResponseException.
+     * Поток запроса ждет сервер не дольше connect-timeout на соединение и response-timeout на заголовки
+     * ответа, дальше HttpTimeoutException; на чтение самого потока событий таймаут не действует.
+     */
+    public ResponseEntity<ResponseBodyEmitter> streamOwnerEvents(long ownerId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(ownerEventsUri)
+                .header("X-Sharer-User-Id", String.valueOf(ownerId))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE)
+                .timeout(eventsResponseTimeout)
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = eventsClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        InputStream body = response.body();
+        if (!HttpStatusCode.valueOf(response.statusCode()).is2xxSuccessful()) {
+            try (body) {
+                throw new RestClientResponseException("Сервер отклонил подписку на события броней",
+                        HttpStatusCode.valueOf(response.statusCode()), "", null, body.readAllBytes(), null);
+            }
+        }
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(NO_TIMEOUT);
+        emitter.onCompletion(() -> closeQuietly(body));
+        emitter.onError(e -> closeQuietly(body));
+        Thread.ofVirtual().name("owner-events-" + ownerId).start(() -> copy(body, emitter));
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(emitter);
+    }
+
+    private static void copy(InputStream body, ResponseBodyEmitter emitter) {
+        byte[] buffer = new byte[8192];
+        try (body) {
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                emitter.send(Arrays.copyOf(buffer, read), MediaType.TEXT_EVENT_STREAM);
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // поток уже закрыт
+        }
+    }
 }
@@ -1,15 +1,20 @@
 package ru.practicum.shareit.booking;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ru.practicum.shareit.booking.dto.BookingRequestDTO;
 import ru.practicum.shareit.booking.dto.StatusBook;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Controller
@@ -38,6 +43,13 @@ public class BookingController {
         return bookingClient.getOwnerBookings(ownerId, state);
     }
 
+    @GetMapping("/owner/events")
+    public ResponseEntity<ResponseBodyEmitter> getOwnerEvents(@RequestHeader("X-Sharer-User-Id") long ownerId)
+            throws IOException, InterruptedException {
+        log.info("Subscribe to owner booking events, ownerId={}", ownerId);
+        return bookingClient.streamOwnerEvents(ownerId);
+    }
+
     @PostMapping
     public ResponseEntity<BookingRequestDTO> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
                                                       @RequestBody @Valid BookingRequestDTO requestDto) {
@@ -59,4 +71,17 @@ public class BookingController {
         log.info("Change booking status to {}, userId={}, bookingId={}", approved, ownerId, bookingId);
         return bookingClient.changeBookingStatus(ownerId, bookingId, approved);
     }
+
+    @GetMapping("/availability")
+    public ResponseEntity<Object> getAvailability(@RequestParam @Positive long itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime start,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End must be after start");
+        }
+        log.info("Get availability of item {} from {} to {}", itemId, start, end);
+        return bookingClient.getAvailability(itemId, start, end);
+    }
 }
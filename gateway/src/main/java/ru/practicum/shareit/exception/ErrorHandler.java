@@ -3,10 +3,14 @@ package ru.practicum.shareit.exception;
 import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.client.RestClientResponseException;
 
+import java.net.http.HttpTimeoutException;
 import java.util.Map;
 
 @Slf4j
@@ -27,4 +31,18 @@ public class ErrorHandler {
         return Map.of("ошибка", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public Map<String, String> handleServerTimeout(final HttpTimeoutException e) {
+        log.error("Сервер не ответил вовремя {}", e.getMessage());
+        return Map.of("ошибка", "Сервер не ответил вовремя");
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<byte[]> handleServerResponse(final RestClientResponseException e) {
+        log.error("Ошибка сервера {}", e.getStatusCode());
+        return ResponseEntity.status(e.getStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(e.getResponseBodyAsByteArray());
+    }
 }
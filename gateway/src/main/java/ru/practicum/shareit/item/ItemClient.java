@@ -11,6 +11,8 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -48,10 +50,32 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}", null, params);
     }
 
+    public ResponseEntity<List<ItemDto>> itemSearch(String text, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> params = Map.of("text", text, "start", start, "end", end);
+        return get("/search?text={text}&start={start}&end={end}", null, params);
+    }
+
     public ResponseEntity<ItemDto> deleteItem(long userId, long itemId) {
         return delete("/" + itemId, userId);
     }
 
+    public ResponseEntity<List<CommentDTO>> getComments(long itemId, long beforeId, int size) {
+        Map<String, Object> params = Map.of("beforeId", beforeId, "size", size);
+        return get("/" + itemId + "/comments?beforeId={beforeId}&size={size}", null, params);
+    }
+
+    public ResponseEntity<List<CommentDTO>> searchComments(String text, Long ownerId, long beforeId, int size) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("text", text);
+        params.put("beforeId", beforeId);
+        params.put("size", size);
+        if (ownerId == null) {
+            return get("/comments/search?text={text}&beforeId={beforeId}&size={size}", null, params);
+        }
+        params.put("ownerId", ownerId);
+        return get("/comments/search?text={text}&ownerId={ownerId}&beforeId={beforeId}&size={size}", null, params);
+    }
+
     public ResponseEntity<CommentDTO> addComment(long userId, long itemId, CommentDTO dto) {
         return post("/" + itemId + "/comment", userId, dto);
     }
@@ -3,6 +3,7 @@ package ru.practicum.shareit.item;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Controller
@@ -17,6 +19,8 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class ItemController {
+    private static final int MAX_COMMENTS_PAGE_SIZE = 100;
+
     private final ItemClient client;
 
     @PostMapping
@@ -47,9 +51,22 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ItemDto>> itemSearch(@RequestParam String text) {
-        log.info("Search item with text {}", text);
-        return client.itemSearch(text);
+    public ResponseEntity<List<ItemDto>> itemSearch(@RequestParam String text,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime start,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime end) {
+        if (start == null && end == null) {
+            log.info("Search item with text {}", text);
+            return client.itemSearch(text);
+        }
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new IllegalArgumentException("Both start and end are required and end must be after start");
+        }
+        log.info("Search item with text {} free from {} to {}", text, start, end);
+        return client.itemSearch(text, start, end);
     }
 
     @DeleteMapping("/{itemId}")
@@ -58,6 +75,29 @@ public class ItemController {
         return client.deleteItem(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDTO>> getComments(@PathVariable long itemId,
+                                                        @RequestParam(defaultValue = "" + Long.MAX_VALUE) long beforeId,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        if (size <= 0 || size > MAX_COMMENTS_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_COMMENTS_PAGE_SIZE);
+        }
+        log.info("Get comments of item with id {}, beforeId={}, size={}", itemId, beforeId, size);
+        return client.getComments(itemId, beforeId, size);
+    }
+
+    @GetMapping("/comments/search")
+    public ResponseEntity<List<CommentDTO>> searchComments(@RequestParam String text,
+                                                           @RequestParam(required = false) Long ownerId,
+                                                           @RequestParam(defaultValue = "" + Long.MAX_VALUE) long beforeId,
+                                                           @RequestParam(defaultValue = "20") int size) {
+        if (size <= 0 || size > MAX_COMMENTS_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_COMMENTS_PAGE_SIZE);
+        }
+        log.info("Search comments with text {}, ownerId={}, beforeId={}, size={}", text, ownerId, beforeId, size);
+        return client.searchComments(text, ownerId, beforeId, size);
+    }
+
     @PostMapping("/{itemId}/comment")
     public ResponseEntity<CommentDTO> addComment(@RequestHeader("X-Sharer-User-Id") long userId,
                                                  @PathVariable long itemId,
@@ -25,5 +25,6 @@ public class ItemDto {
     private BookingShortDto nextBooking;
     private BookingShortDto lastBooking;
     private List<CommentDTO> comments;
+    private Long commentsCount;
     private Long requestId;
 }
@@ -18,5 +18,6 @@ public class ItemRequestDto {
     @Size(max = 511, message = "Слишком длинное описание")
     private String description;
     private List<ItemDto> items;
+    private List<ItemDto> suggestions;
     private LocalDateTime created;
 }
@@ -3,13 +3,20 @@ package ru.practicum.shareit.user;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.user.dto.UserDTO;
 
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
@@ -28,8 +35,21 @@ public class UserClient extends BaseClient {
         return post("", dto);
     }
 
-    public ResponseEntity<Object> getAllUsers() {
-        return get("");
+    public ResponseEntity<Object> getAllUsers(long afterId, int size) {
+        Map<String, Object> params = Map.of("afterId", afterId, "size", size);
+        return get("?afterId={afterId}&size={size}", null, params);
+    }
+
+    /**
+     * Копирует NDJSON-выгрузку сервера в out по мере получения, не собирая ответ в памяти.
+     */
+    public void exportUsers(OutputStream out) {
+        rest.execute("/export", HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                response -> {
+                    StreamUtils.copy(response.getBody(), out);
+                    return null;
+                });
     }
 
     public ResponseEntity<UserDTO> getUser(long userId) {
@@ -1,13 +1,17 @@
 package ru.practicum.shareit.user;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.user.dto.UserDTO;
 
 @RestController
@@ -24,6 +28,21 @@ public class UserController {
         return client.saveUser(userDto);
     }
 
+    @GetMapping
+    public ResponseEntity<Object> getAllUsers(@RequestParam(defaultValue = "0") @PositiveOrZero long afterId,
+                                              @RequestParam(defaultValue = "100") @Positive @Max(1000) int size) {
+        log.info("Get users after id {}, size={}", afterId, size);
+        return client.getAllUsers(afterId, size);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        log.info("Export users");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(client::exportUsers);
+    }
+
     @GetMapping("/{userId}")
     public ResponseEntity<UserDTO> getUser(@PathVariable @NotNull @Positive long userId) {
         log.info("Get user with id {}", userId);
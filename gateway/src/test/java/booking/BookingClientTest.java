@@ -20,6 +20,7 @@ import ru.practicum.shareit.booking.BookingClient;
 import ru.practicum.shareit.booking.dto.BookingRequestDTO;
 import ru.practicum.shareit.booking.dto.StatusBook;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Objects;
@@ -53,7 +54,7 @@ class BookingClientTest {
                 .thenReturn(restTemplate);
         builder.uriTemplateHandler(uriBuilderFactory);
 
-        bookingClient = new BookingClient(BASE_URL, builder);
+        bookingClient = new BookingClient(BASE_URL, builder, Duration.ofSeconds(5), Duration.ofSeconds(10));
 
         ResponseEntity<Object> mockResponse = ResponseEntity.ok().body("mock-response");
         Mockito.lenient().when(restTemplate.exchange(
@@ -378,4 +379,22 @@ class BookingClientTest {
                                 Objects.equals(entity.getHeaders().getFirst(X_SHARER_USER_ID), "1")),
                 Mockito.eq(Object.class));
     }
+
+    @Test
+    void getAvailabilityShouldCallGetWithItemAndPeriodParameters() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 2, 10, 0);
+
+        bookingClient.getAvailability(1L, start, end);
+
+        Mockito.verify(restTemplate).exchange(
+                Mockito.eq("/availability?itemId={itemId}&start={start}&end={end}"),
+                Mockito.eq(HttpMethod.GET),
+                Mockito.argThat((HttpEntity<?> entity) -> !entity.getHeaders().containsKey(X_SHARER_USER_ID)),
+                Mockito.eq(Object.class),
+                Mockito.argThat((Map<String, Object> params) ->
+                        params.get("itemId").equals(1L) && params.get("start").equals(start)
+                                && params.get("end").equals(end))
+        );
+    }
 }
@@ -8,9 +8,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ru.practicum.shareit.ShareItGateway;
 import ru.practicum.shareit.booking.BookingClient;
 import ru.practicum.shareit.booking.dto.BookingRequestDTO;
@@ -18,13 +22,17 @@ import ru.practicum.shareit.booking.dto.StatusBook;
 
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 
 @SpringBootTest(classes = ShareItGateway.class)
 @AutoConfigureMockMvc
@@ -140,6 +148,50 @@ class BookingControllerTest {
                 .changeBookingStatus(98, (long) 43, true);
     }
 
+    @Test
+    void testGetOwnerEventsStreamsServerEvents() throws Exception {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        Mockito.when(client.streamOwnerEvents(Mockito.anyLong()))
+                .thenReturn(ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter));
+
+        MvcResult result = mvc.perform(get("/bookings/owner/events")
+                        .header("X-Sharer-User-Id", 7))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send("event:booking-created\ndata:{}\n\n".getBytes(StandardCharsets.UTF_8),
+                MediaType.TEXT_EVENT_STREAM);
+        emitter.complete();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string("event:booking-created\ndata:{}\n\n"));
+        Mockito.verify(client, Mockito.times(1))
+                .streamOwnerEvents(7);
+    }
+
+    @Test
+    void testGetOwnerEventsPassesServerError() throws Exception {
+        Mockito.when(client.streamOwnerEvents(Mockito.anyLong()))
+                .thenThrow(new RestClientResponseException("not found", HttpStatus.NOT_FOUND, "", null,
+                        "{\"error\":\"Пользователь не найден\"}".getBytes(StandardCharsets.UTF_8), null));
+
+        mvc.perform(get("/bookings/owner/events")
+                        .header("X-Sharer-User-Id", 7))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", is("Пользователь не найден")));
+    }
+
+    @Test
+    void testGetOwnerEventsServerTimeout() throws Exception {
+        Mockito.when(client.streamOwnerEvents(Mockito.anyLong()))
+                .thenThrow(new HttpTimeoutException("request timed out"));
+
+        mvc.perform(get("/bookings/owner/events")
+                        .header("X-Sharer-User-Id", 7))
+                .andExpect(status().isGatewayTimeout());
+    }
+
     @Test
     void testGetUserBookingsWithEmptyList() throws Exception {
         Mockito.when(client.getUserBookings(Mockito.anyLong(), Mockito.any(StatusBook.class)))
@@ -303,4 +355,33 @@ class BookingControllerTest {
             Mockito.reset(client);
         }
     }
+
+    @Test
+    void testGetAvailability() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 2, 10, 0);
+        Mockito.when(client.getAvailability(1L, start, end))
+                .thenReturn(ResponseEntity.ok(Map.of("itemId", 1, "available", true)));
+
+        mvc.perform(get("/bookings/availability")
+                        .param("itemId", "1")
+                        .param("start", start.toString())
+                        .param("end", end.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("available", is(true)));
+
+        Mockito.verify(client, Mockito.times(1))
+                .getAvailability(1L, start, end);
+    }
+
+    @Test
+    void testGetAvailabilityWithEndBeforeStart() throws Exception {
+        mvc.perform(get("/bookings/availability")
+                        .param("itemId", "1")
+                        .param("start", "2030-01-02T10:00:00")
+                        .param("end", "2030-01-01T10:00:00"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(client);
+    }
 }
@@ -20,6 +20,7 @@ import ru.practicum.shareit.item.ItemClient;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -55,7 +56,15 @@ class ItemClientTest {
         itemClient = new ItemClient(BASE_URL, builder);
 
         ResponseEntity<Object> mockResponse = ResponseEntity.ok().body("mock-response");
-        when(restTemplate.exchange(
+        Mockito.lenient().when(restTemplate.exchange(
+                Mockito.anyString(),
+                Mockito.any(HttpMethod.class),
+                Mockito.any(),
+                Mockito.eq(Object.class),
+                Mockito.any(Map.class)
+        )).thenReturn(mockResponse);
+
+        Mockito.lenient().when(restTemplate.exchange(
                 Mockito.anyString(),
                 Mockito.any(HttpMethod.class),
                 Mockito.any(),
@@ -329,4 +338,37 @@ class ItemClientTest {
                 Mockito.eq(Object.class)
         );
     }
+
+    @Test
+    void getCommentsShouldCallGetWithKeysetParams() {
+        itemClient.getComments(7L, 50L, 10);
+        Mockito.verify(restTemplate).exchange(
+                Mockito.eq("/7/comments?beforeId={beforeId}&size={size}"),
+                Mockito.eq(HttpMethod.GET),
+                Mockito.any(),
+                Mockito.eq(Object.class),
+                Mockito.eq(Map.of("beforeId", 50L, "size", 10))
+        );
+    }
+
+    @Test
+    void searchCommentsShouldAddOwnerOnlyWhenPresent() {
+        itemClient.searchComments("comfy", null, 50L, 10);
+        itemClient.searchComments("comfy", 3L, 50L, 10);
+
+        Mockito.verify(restTemplate).exchange(
+                Mockito.eq("/comments/search?text={text}&beforeId={beforeId}&size={size}"),
+                Mockito.eq(HttpMethod.GET),
+                Mockito.any(),
+                Mockito.eq(Object.class),
+                Mockito.eq(Map.of("text", "comfy", "beforeId", 50L, "size", 10))
+        );
+        Mockito.verify(restTemplate).exchange(
+                Mockito.eq("/comments/search?text={text}&ownerId={ownerId}&beforeId={beforeId}&size={size}"),
+                Mockito.eq(HttpMethod.GET),
+                Mockito.any(),
+                Mockito.eq(Object.class),
+                Mockito.eq(Map.of("text", "comfy", "ownerId", 3L, "beforeId", 50L, "size", 10))
+        );
+    }
 }
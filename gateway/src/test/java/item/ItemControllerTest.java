@@ -22,6 +22,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -144,6 +145,74 @@ class ItemControllerTest {
                 .itemSearch(text);
     }
 
+    @Test
+    void testItemSearchInPeriod() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 2, 10, 0);
+
+        Mockito.when(client.itemSearch("doll", start, end))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(dto)));
+
+        mvc.perform(get("/items/search")
+                        .param("text", "doll")
+                        .param("start", start.toString())
+                        .param("end", end.toString())
+                        .accept(MediaType.APPLICATION_JSON)
+                ).andExpect(status().isOk())
+                .andExpect(jsonPath("[0]name", is(dto.getName())));
+
+        Mockito.verify(client, Mockito.never()).itemSearch(Mockito.anyString());
+    }
+
+    @Test
+    void testItemSearchWithOnlyStart() throws Exception {
+        mvc.perform(get("/items/search")
+                        .param("text", "doll")
+                        .param("start", "2030-01-01T10:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(client);
+    }
+
+    @Test
+    void testGetComments() throws Exception {
+        Mockito.when(client.getComments(5L, 40L, 10))
+                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+
+        mvc.perform(get("/items/5/comments")
+                        .param("beforeId", "40")
+                        .param("size", "10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        Mockito.verify(client).getComments(5L, 40L, 10);
+    }
+
+    @Test
+    void testGetCommentsWithTooLargePage() throws Exception {
+        mvc.perform(get("/items/5/comments")
+                        .param("size", "101")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(client);
+    }
+
+    @Test
+    void testSearchComments() throws Exception {
+        Mockito.when(client.searchComments("comfy", 3L, Long.MAX_VALUE, 20))
+                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+
+        mvc.perform(get("/items/comments/search")
+                        .param("text", "comfy")
+                        .param("ownerId", "3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        Mockito.verify(client).searchComments("comfy", 3L, Long.MAX_VALUE, 20);
+    }
+
     @Test
     void testDeleteItem() throws Exception {
         Mockito.when(client.deleteItem(Mockito.anyLong(), Mockito.anyLong()))
@@ -12,6 +12,8 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.web.util.UriTemplateHandler;
@@ -19,6 +21,8 @@ import ru.practicum.shareit.ShareItGateway;
 import ru.practicum.shareit.user.UserClient;
 import ru.practicum.shareit.user.dto.UserDTO;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import static org.mockito.Mockito.when;
@@ -51,7 +55,15 @@ class UserClientTest {
         userClient = new UserClient(BASE_URL, builder);
 
         ResponseEntity<Object> mockResponse = ResponseEntity.ok().body("mock-response");
-        when(restTemplate.exchange(
+        Mockito.lenient().when(restTemplate.exchange(
+                Mockito.anyString(),
+                Mockito.any(HttpMethod.class),
+                Mockito.any(),
+                Mockito.eq(Object.class),
+                Mockito.any(Map.class)
+        )).thenReturn(mockResponse);
+
+        Mockito.lenient().when(restTemplate.exchange(
                 Mockito.anyString(),
                 Mockito.any(HttpMethod.class),
                 Mockito.any(),
@@ -72,13 +84,25 @@ class UserClientTest {
     }
 
     @Test
-    void getAllUsersShouldCallGetWithEmptyPath() {
-        userClient.getAllUsers();
+    void getAllUsersShouldCallGetWithKeysetParams() {
+        userClient.getAllUsers(10L, 20);
         Mockito.verify(restTemplate).exchange(
-                Mockito.eq(""),
+                Mockito.eq("?afterId={afterId}&size={size}"),
                 Mockito.eq(HttpMethod.GET),
                 Mockito.any(),
-                Mockito.eq(Object.class)
+                Mockito.eq(Object.class),
+                Mockito.eq(Map.of("afterId", 10L, "size", 20))
+        );
+    }
+
+    @Test
+    void exportUsersShouldStreamServerResponse() {
+        userClient.exportUsers(new ByteArrayOutputStream());
+        Mockito.verify(restTemplate).execute(
+                Mockito.eq("/export"),
+                Mockito.eq(HttpMethod.GET),
+                Mockito.any(RequestCallback.class),
+                Mockito.<ResponseExtractor<Object>>any()
         );
     }
 
@@ -11,16 +11,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.ShareItGateway;
 import ru.practicum.shareit.user.UserClient;
 import ru.practicum.shareit.user.dto.UserDTO;
 
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @SpringBootTest(classes = ShareItGateway.class)
 @AutoConfigureMockMvc
@@ -158,6 +163,47 @@ class UserControllerTest {
     }
 
 
+    @Test
+    void testGetAllUsers() throws Exception {
+        Mockito.when(client.getAllUsers(Mockito.anyLong(), Mockito.anyInt()))
+                .thenReturn(ResponseEntity.ok(List.of(dto)));
+
+        mvc.perform(get("/users")
+                        .param("afterId", "5")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is(dto.getName())));
+
+        Mockito.verify(client).getAllUsers(5L, 10);
+    }
+
+    @Test
+    void testGetAllUsersWithTooLargePage() throws Exception {
+        mvc.perform(get("/users")
+                        .param("size", "1001"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(client, Mockito.never()).getAllUsers(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    void testExportUsers() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(client).exportUsers(Mockito.any(OutputStream.class));
+
+        MvcResult result = mvc.perform(get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
     @Test
     void testGetUserWithZeroId() throws Exception {
         mvc.perform(get("/users/0"))
@@ -1,12 +1,17 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.service.BookingEventHub;
 import ru.practicum.shareit.booking.service.BookingService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -14,6 +19,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService service;
+    private final BookingEventHub eventHub;
 
     @PostMapping
     public ResponseBookingDto bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
@@ -44,4 +50,18 @@ public class BookingController {
                                                      @RequestParam(defaultValue = "all") String state) {
         return service.getOwnerBookings(ownerId, state);
     }
+
+    @GetMapping("/owner/events")
+    public SseEmitter getOwnerEvents(@RequestHeader("X-Sharer-User-Id") long ownerId) {
+        return eventHub.subscribe(ownerId);
+    }
+
+    @GetMapping("/availability")
+    public ItemAvailabilityDto getAvailability(@RequestParam long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime start,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime end) {
+        return service.getAvailability(itemId, start, end);
+    }
 }
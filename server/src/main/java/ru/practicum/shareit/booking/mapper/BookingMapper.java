@@ -7,6 +7,7 @@ import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
+import ru.practicum.shareit.item.model.BookingSnapshot;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -17,6 +18,7 @@ public final class BookingMapper {
     public static Booking mapToBooking(User booker, Item item, BookingDto requestBookingDto) {
         return Booking.builder()
                 .item(item)
+                .ownerId(item.getOwner().getId())
                 .booker(booker)
                 .status(requestBookingDto.getStatus())
                 .startDate(requestBookingDto.getStart())
@@ -44,4 +46,14 @@ public final class BookingMapper {
                 .end(booking.getEndDate())
                 .build();
     }
+
+    public static BookingShortDto mapToShortDto(BookingSnapshot snapshot) {
+
+        return BookingShortDto.builder()
+                .id(snapshot.getBookingId())
+                .bookerId(snapshot.getBookerId())
+                .start(snapshot.getStartDate())
+                .end(snapshot.getEndDate())
+                .build();
+    }
 }
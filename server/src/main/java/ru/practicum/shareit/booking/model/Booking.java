@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.SQLRestriction;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@SQLRestriction("hidden = false")
 @Table(name = "bookings")
 public class Booking {
     @Id
@@ -25,6 +27,9 @@ public class Booking {
     @ToString.Exclude
     private Item item;
 
+    @Column(name = "owner_id")
+    private Long ownerId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     @ToString.Exclude
@@ -39,8 +44,25 @@ public class Booking {
     @Column(name = "end_date")
     private LocalDateTime endDate;
 
-    @Transient
-    public boolean isFinished(LocalDateTime now) {
-        return getStatus() == StatusBook.APPROVED && getEndDate().isBefore(now);
+    @Enumerated(EnumType.STRING)
+    @Column(name = "phase")
+    private BookingPhase phase;
+
+    /**
+     * Бронь удаленного предмета, владельца или арендатора. Флаг ставится при мягком удалении,
+     * чтобы не проверять удаление связанных строк подзапросами в каждом запросе броней.
+     */
+    @Builder.Default
+    @Column(name = "hidden")
+    private boolean hidden = false;
+
+    @PrePersist
+    void initDerivedFields() {
+        if (phase == null && startDate != null && endDate != null) {
+            phase = BookingPhase.of(startDate, endDate, LocalDateTime.now());
+        }
+        if (ownerId == null && item != null && item.getOwner() != null) {
+            ownerId = item.getOwner().getId();
+        }
     }
 }
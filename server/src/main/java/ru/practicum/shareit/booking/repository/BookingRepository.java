@@ -1,57 +1,97 @@
 package ru.practicum.shareit.booking.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.model.StatusBook;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Запросы, результат которых превращается в ResponseBookingDto, сразу подгружают item и booker,
+ * иначе маппинг списка из N броней делает до 2N дополнительных SELECT.
+ */
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByItemOwnerId(long ownerId);
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findById(Long id);
 
-    List<Booking> findByItemOwnerIdAndStartDateBeforeAndEndDateAfter(long ownerId, LocalDateTime now1, LocalDateTime now2, Sort sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findByOwnerId(long ownerId, Sort sort);
 
-    List<Booking> findByItemOwnerIdAndEndDateBefore(long ownerId, LocalDateTime now, Sort sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findByOwnerIdAndPhase(long ownerId, BookingPhase phase, Sort sort);
 
-    List<Booking> findByItemOwnerIdAndStartDateAfter(long ownerId, LocalDateTime now, Sort sort);
-
-    List<Booking> findByItemOwnerIdAndStatusContaining(long ownerId, String status, Sort sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findByOwnerIdAndStatus(long ownerId, StatusBook status, Sort sort);
 
+    @EntityGraph(attributePaths = {"item", "booker"})
     List<Booking> findByBookerId(long bookerId, Sort sort);
 
-    List<Booking> findByBookerIdAndStartDateBeforeAndEndDateAfter(long ownerId, LocalDateTime now1, LocalDateTime now2, Sort sort);
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findByBookerIdAndPhase(long bookerId, BookingPhase phase, Sort sort);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findByBookerIdAndStatus(long bookerId, StatusBook status, Sort sort);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.phase IN ?1 AND b.endDate <= ?2")
+    List<Long> findIdsEndedBefore(Collection<BookingPhase> phases, LocalDateTime now, Limit limit);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.phase = ?1 AND b.startDate <= ?2")
+    List<Long> findIdsStartedBefore(BookingPhase phase, LocalDateTime now, Limit limit);
 
-    List<Booking> findByBookerIdAndEndDateBefore(long ownerId, LocalDateTime now, Sort sort);
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = ?2 WHERE b.id IN ?1")
+    int updatePhase(Collection<Long> ids, BookingPhase phase);
 
-    List<Booking> findByBookerIdAndStartDateAfter(long ownerId, LocalDateTime now, Sort sort);
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.hidden = true WHERE b.item.id = ?1")
+    int hideByItemId(long itemId);
 
-    List<Booking> findByBookerIdAndStatusContaining(long ownerId, String status, Sort sort);
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.hidden = true WHERE b.booker.id = ?1 OR b.ownerId = ?1")
+    int hideByUserId(long userId);
 
     @Query("SELECT b " +
             "FROM Booking b " +
-            "JOIN FETCH b.item i " +
-            "WHERE i.id = ?1 AND b.startDate >= CURRENT_TIMESTAMP " +
+            "WHERE b.item.id = ?1 AND b.status = 'APPROVED' AND b.startDate >= ?2 " +
             "ORDER BY b.startDate ASC " +
             "LIMIT 1")
-    Booking getNearliestFutureBooking(Long itemId);
+    Booking getNearliestFutureBooking(Long itemId, LocalDateTime now);
 
     @Query("SELECT b " +
             "FROM Booking b " +
-            "JOIN FETCH b.item i " +
-            "WHERE i.id = ?1 AND b.endDate < CURRENT_TIMESTAMP " +
+            "WHERE b.item.id = ?1 AND b.status = 'APPROVED' AND b.endDate < ?2 " +
             "ORDER BY b.endDate DESC " +
             "LIMIT 1")
-    Booking getNearliestPastBooking(Long itemId);
+    Booking getNearliestPastBooking(Long itemId, LocalDateTime now);
+
+    @Query("SELECT MIN(b.endDate) " +
+            "FROM Booking b " +
+            "WHERE b.item.id = ?1 AND b.status = 'APPROVED' AND b.endDate >= ?2")
+    LocalDateTime getNearliestBookingEnd(Long itemId, LocalDateTime now);
+
+    @Query("SELECT DISTINCT b.item.id FROM Booking b " +
+            "WHERE (b.booker.id = ?1 OR b.ownerId = ?1) AND b.status IN ?2 AND b.endDate > ?3")
+    List<Long> findItemIdsByUserAndStatusInAndEndDateAfter(long userId, Collection<StatusBook> statuses,
+                                                          LocalDateTime now);
 
-    boolean existsByItemId(long itemId);
+    List<Booking> findByItemIdAndStatusInAndEndDateAfter(long itemId, Collection<StatusBook> statuses, LocalDateTime now);
 
-   List<Booking> findByItemIdAndBookerId(Long userId, Long itemId);
+    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
+            "WHERE b.item.id = ?1 AND b.status = 'APPROVED' AND b.startDate < ?3 AND b.endDate > ?2 AND b.id <> ?4")
+    boolean existsApprovedOverlap(long itemId, LocalDateTime start, LocalDateTime end, long exceptBookingId);
 
-    @Query("select b from Booking b where b.item in ?1 and b.status = 'APPROVED'")
-    List<Booking> findApprovedForItems(Collection<Item> items, Sort sort);
+    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
+            "WHERE b.booker.id = ?1 AND b.item.id = ?2 AND b.status = 'APPROVED' AND b.endDate < ?3")
+    boolean existsFinishedApproved(long bookerId, long itemId, LocalDateTime now);
 
 }
@@ -0,0 +1,253 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.StatusBook;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.TransactionHooks;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Календарь подтверждённых и ожидающих подтверждения броней предметов в памяти.
+ * Интервалы каждого предмета загружаются из БД при первом обращении и хранятся
+ * в отсортированных по началу массивах, поэтому проверка пересечения — бинарный поиск.
+ * Изменения применяются после коммита и увеличивают счетчик changes: загрузка, во время которой
+ * счетчик изменился, не кешируется, иначе снимок, прочитанный до коммита, пережил бы его.
+ * Интервалы всегда читаются с основной базы: снимок с отстающей реплики попал бы в кэш без срока жизни
+ * и по нему bookItem пропускал бы пересечения.
+ */
+@Component
+public class BookingCalendar {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    /**
+     * Статусы броней, занимающих предмет; тот же набор исключает предметы из поиска по периоду.
+     */
+    public static final List<StatusBook> OCCUPYING = List.of(StatusBook.APPROVED, StatusBook.WAITING);
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate joinedPrimaryRead;
+    private final TransactionTemplate separatePrimaryRead;
+    private final Map<Long, Intervals> calendars;
+    private long changes;
+
+    public BookingCalendar(BookingRepository bookingRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${shareit.booking-calendar.max-items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.joinedPrimaryRead = new TransactionTemplate(transactionManager);
+        this.separatePrimaryRead = new TransactionTemplate(transactionManager);
+        this.separatePrimaryRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.calendars = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Intervals> eldest) {
+                return size() > maxItems;
+            }
+        });
+    }
+
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end) {
+        return calendarOf(itemId).isFree(toEpoch(start), toEpoch(end));
+    }
+
+    public LocalDateTime nextFreeSlot(long itemId, LocalDateTime from, LocalDateTime to) {
+        long start = toEpoch(from);
+        long slot = calendarOf(itemId).nextFreeSlot(start, toEpoch(to) - start);
+        return slot == start ? from : fromEpoch(slot);
+    }
+
+    public void onStatusChanged(Booking booking) {
+        long itemId = booking.getItem().getId();
+        long id = booking.getId();
+        long start = toEpoch(booking.getStartDate());
+        long end = toEpoch(booking.getEndDate());
+        boolean occupies = OCCUPYING.contains(booking.getStatus());
+
+        TransactionHooks.afterCommit(() -> {
+            synchronized (calendars) {
+                changes++;
+                calendars.computeIfPresent(itemId, (key, intervals) -> occupies
+                        ? intervals.with(id, start, end)
+                        : intervals.without(id));
+            }
+        });
+    }
+
+    /**
+     * Вызывается до скрытия броней пользователя: после коммита сбрасываются календари предметов,
+     * которые занимали его брони.
+     */
+    public void forgetUser(long userId) {
+        forget(bookingRepository.findItemIdsByUserAndStatusInAndEndDateAfter(userId, OCCUPYING,
+                LocalDateTime.now()));
+    }
+
+    public void forgetItem(long itemId) {
+        forget(List.of(itemId));
+    }
+
+    private void forget(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (calendars) {
+                changes++;
+                itemIds.forEach(calendars::remove);
+            }
+        });
+    }
+
+    private Intervals calendarOf(long itemId) {
+        Intervals intervals = calendars.get(itemId);
+        if (intervals != null) {
+            return intervals;
+        }
+        long loadedAt;
+        synchronized (calendars) {
+            loadedAt = changes;
+        }
+        intervals = Intervals.of(loadFromPrimary(itemId));
+        synchronized (calendars) {
+            if (changes == loadedAt) {
+                calendars.putIfAbsent(itemId, intervals);
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * Пишущая транзакция уже идет в основную базу, и загрузка присоединяется к ней, чтобы видеть ее брони.
+     * Читающая транзакция может быть направлена на реплику, поэтому загрузка идет в отдельной пишущей.
+     */
+    private List<Booking> loadFromPrimary(long itemId) {
+        TransactionTemplate template = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? separatePrimaryRead
+                : joinedPrimaryRead;
+        return template.execute(status -> bookingRepository.findByItemIdAndStatusInAndEndDateAfter(itemId,
+                OCCUPYING, LocalDateTime.now()));
+    }
+
+    private static long toEpoch(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(EPOCH, dateTime);
+    }
+
+    private static LocalDateTime fromEpoch(long epoch) {
+        return EPOCH.plus(epoch, ChronoUnit.MICROS);
+    }
+
+    /**
+     * Неизменяемый набор интервалов [start, end), отсортированных по началу.
+     * {@code maxEnds[i]} — наибольший конец среди первых i + 1 интервалов.
+     */
+    static final class Intervals {
+        private final long[] ids;
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] maxEnds;
+
+        private Intervals(long[] ids, long[] starts, long[] ends) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnds = new long[ends.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+
+        static Intervals of(List<Booking> bookings) {
+            List<Booking> sorted = bookings.stream()
+                    .sorted(Comparator.comparing(Booking::getStartDate))
+                    .toList();
+            long[] ids = new long[sorted.size()];
+            long[] starts = new long[sorted.size()];
+            long[] ends = new long[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                ids[i] = sorted.get(i).getId();
+                starts[i] = toEpoch(sorted.get(i).getStartDate());
+                ends[i] = toEpoch(sorted.get(i).getEndDate());
+            }
+            return new Intervals(ids, starts, ends);
+        }
+
+        boolean isFree(long start, long end) {
+            if (end <= start) {
+                return true;
+            }
+            int last = lastStartingBefore(end);
+            return last < 0 || maxEnds[last] <= start;
+        }
+
+        long nextFreeSlot(long from, long duration) {
+            long candidate = from;
+            for (int i = 0; i < starts.length; i++) {
+                if (ends[i] <= candidate) {
+                    continue;
+                }
+                if (starts[i] >= candidate + duration) {
+                    break;
+                }
+                candidate = ends[i];
+            }
+            return candidate;
+        }
+
+        Intervals with(long id, long start, long end) {
+            Intervals base = without(id);
+            int position = base.lastStartingBefore(start + 1) + 1;
+            return new Intervals(insert(base.ids, position, id), insert(base.starts, position, start),
+                    insert(base.ends, position, end));
+        }
+
+        Intervals without(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return new Intervals(remove(ids, i), remove(starts, i), remove(ends, i));
+                }
+            }
+            return this;
+        }
+
+        private int lastStartingBefore(long moment) {
+            int index = Arrays.binarySearch(starts, moment);
+            if (index < 0) {
+                return -index - 2;
+            }
+            while (index >= 0 && starts[index] >= moment) {
+                index--;
+            }
+            return index;
+        }
+
+        private static long[] insert(long[] source, int position, long value) {
+            long[] result = new long[source.length + 1];
+            System.arraycopy(source, 0, result, 0, position);
+            result[position] = value;
+            System.arraycopy(source, position, result, position + 1, source.length - position);
+            return result;
+        }
+
+        private static long[] remove(long[] source, int position) {
+            long[] result = new long[source.length - 1];
+            System.arraycopy(source, 0, result, 0, position);
+            System.arraycopy(source, position + 1, result, position, source.length - position - 1);
+            return result;
+        }
+    }
+}
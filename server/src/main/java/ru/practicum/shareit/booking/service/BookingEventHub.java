@@ -0,0 +1,174 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.common.TransactionHooks;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.service.UserCache;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Рассылка событий о бронях владельцам предметов через SSE. Подписка — асинхронный запрос сервлета,
+ * поток на простаивающее соединение не занимается. У каждого подписчика своя очередь на buffer-size
+ * событий: событие после коммита только кладется в очередь, а отправляет его виртуальный поток.
+ * Если клиент не успевает читать и очередь заполнилась, соединение закрывается — клиент переподключается
+ * и перечитывает брони обычным запросом. Раз в heartbeat-millis подписчикам уходит комментарий,
+ * чтобы прокси не закрывали простаивающие соединения.
+ */
+@Slf4j
+@Component
+public class BookingEventHub {
+    public static final String BOOKING_CREATED = "booking-created";
+    public static final String STATUS_CHANGED = "status-changed";
+
+    private final UserCache userCache;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("booking-events-", 0).factory());
+    private final Counter overflows;
+
+    public BookingEventHub(UserCache userCache,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.booking-events.timeout-millis:1800000}") long timeoutMillis,
+                           @Value("${shareit.booking-events.buffer-size:100}") int bufferSize) {
+        this.userCache = userCache;
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        Gauge.builder("shareit.booking-events.subscribers", connections, AtomicInteger::get)
+                .description("Открытые подписки владельцев на события броней")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("shareit.booking-events.overflow")
+                .description("Подписки, закрытые из-за переполненной очереди событий")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(long ownerId) {
+        if (!userCache.exists(ownerId)) {
+            throw new NotFoundException("Пользователь с id '" + ownerId + "' не найден");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(ownerId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.compute(ownerId, (id, owned) -> {
+            Set<Subscriber> result = owned == null ? ConcurrentHashMap.newKeySet() : owned;
+            result.add(subscriber);
+            return result;
+        });
+        connections.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Событие уходит подписчикам владельца только после коммита транзакции.
+     */
+    public void publish(long ownerId, String name, ResponseBookingDto booking) {
+        TransactionHooks.afterCommit(() -> {
+            Set<Subscriber> owned = subscribers.get(ownerId);
+            if (owned == null) {
+                return;
+            }
+            for (Subscriber subscriber : owned) {
+                offer(subscriber, () -> SseEmitter.event()
+                        .id(String.valueOf(booking.getId()))
+                        .name(name)
+                        .data(booking));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-events.heartbeat-millis:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> owned : subscribers.values()) {
+            for (Subscriber subscriber : owned) {
+                offer(subscriber, () -> SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(owned -> owned.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    /**
+     * SseEventBuilder при сборке дописывает перевод строки, поэтому событие собирается для каждого
+     * подписчика заново.
+     */
+    private void offer(Subscriber subscriber, Supplier<SseEmitter.SseEventBuilder> event) {
+        if (!subscriber.queue.offer(event.get())) {
+            overflows.increment();
+            log.warn("Очередь событий владельца {} переполнена, подписка закрыта", subscriber.ownerId);
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Подписка владельца {} закрыта: {}", subscriber.ownerId, e.getMessage());
+                    unsubscribe(subscriber);
+                    subscriber.queue.clear();
+                    subscriber.emitter.completeWithError(e);
+                }
+            }
+            subscriber.draining.set(false);
+        } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.ownerId, (id, owned) -> {
+            if (owned.remove(subscriber)) {
+                connections.decrementAndGet();
+            }
+            return owned.isEmpty() ? null : owned;
+        });
+    }
+
+
+    private static final class Subscriber {
+        private final long ownerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(long ownerId, SseEmitter emitter, BlockingQueue<SseEmitter.SseEventBuilder> queue) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
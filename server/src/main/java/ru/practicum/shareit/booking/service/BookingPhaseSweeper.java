@@ -0,0 +1,63 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.BookingPhase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Переводит брони между фазами FUTURE -> CURRENT -> PAST по мере наступления дат начала и окончания.
+ * Каждая пачка обновляется в отдельной короткой транзакции.
+ */
+@Slf4j
+@Component
+public class BookingPhaseSweeper {
+    private static final List<BookingPhase> NOT_FINISHED = List.of(BookingPhase.FUTURE, BookingPhase.CURRENT);
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BookingPhaseSweeper(BookingRepository bookingRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${shareit.booking-phase.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-phase.sweep-delay:1000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int finished = moveAll(() -> bookingRepository.findIdsEndedBefore(NOT_FINISHED, now, Limit.of(batchSize)),
+                BookingPhase.PAST);
+        int started = moveAll(() -> bookingRepository.findIdsStartedBefore(BookingPhase.FUTURE, now,
+                Limit.of(batchSize)), BookingPhase.CURRENT);
+
+        if (finished + started > 0) {
+            log.debug("Фазы броней обновлены: завершено {}, начато {}", finished, started);
+        }
+    }
+
+    private int moveAll(Supplier<List<Long>> batch, BookingPhase phase) {
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = batch.get();
+                return ids.isEmpty() ? 0 : bookingRepository.updatePhase(ids, phase);
+            });
+            total += moved;
+        } while (moved == batchSize);
+        return total;
+    }
+}
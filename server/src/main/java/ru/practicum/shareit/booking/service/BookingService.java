@@ -1,15 +1,21 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
+@Transactional(readOnly = true)
 public interface BookingService {
+    @Transactional
     ResponseBookingDto bookItem(long userId, BookingDto requestBookingDto);
 
+    @Transactional
     ResponseBookingDto changeBookStatus(long ownerId, long bookingId, boolean approved);
 
     ResponseBookingDto getBooking(long bookingId);
@@ -18,4 +24,6 @@ public interface BookingService {
 
     List<ResponseBookingDto> getOwnerBookings(Long ownerId, String state);
 
+    ItemAvailabilityDto getAvailability(long itemId, LocalDateTime start, LocalDateTime end);
+
 }
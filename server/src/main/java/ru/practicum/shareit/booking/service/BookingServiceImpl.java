@@ -5,9 +5,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.StatusBook;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.BadRequestException;
@@ -16,8 +18,10 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -30,6 +34,10 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final ItemBookingSummaryService summaryService;
+    private final BookingCalendar bookingCalendar;
+    private final UserCache userCache;
+    private final BookingEventHub eventHub;
 
 
     @Override
@@ -39,9 +47,15 @@ public class BookingServiceImpl implements BookingService {
         if (!booking.getItem().getAvailable()) {
             throw new BadRequestException("Предмет не доступен для бронирования");
         }
+        checkItemIsFree(booking);
 
         booking.setStatus(StatusBook.WAITING);
-        return prepareAndMakeBookingDto(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        summaryService.refresh(saved.getItem().getId());
+        bookingCalendar.onStatusChanged(saved);
+        ResponseBookingDto created = prepareAndMakeBookingDto(saved);
+        eventHub.publish(saved.getItem().getOwner().getId(), BookingEventHub.BOOKING_CREATED, created);
+        return created;
     }
 
     @Override
@@ -50,14 +64,23 @@ public class BookingServiceImpl implements BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронь с id '" + bookingId + "' не найдена"));
 
-        if (!userRepository.existsById(booking.getBooker().getId()))
+        if (!userCache.exists(booking.getBooker().getId()))
             throw new ConditionsNotMatchException("Пользователь не найден");
 
         if (booking.getItem().getOwner().getId() != ownerId) {
             throw new ConditionsNotMatchException("Только владелец может изменять статус брони");
         }
+        if (approved && bookingRepository.existsApprovedOverlap(booking.getItem().getId(), booking.getStartDate(),
+                booking.getEndDate(), bookingId)) {
+            throw new BadRequestException("Предмет уже забронирован на это время");
+        }
         booking.setStatus(status);
-        return prepareAndMakeBookingDto(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        summaryService.refresh(saved.getItem().getId());
+        bookingCalendar.onStatusChanged(saved);
+        ResponseBookingDto changed = prepareAndMakeBookingDto(saved);
+        eventHub.publish(ownerId, BookingEventHub.STATUS_CHANGED, changed);
+        return changed;
     }
 
     @Override
@@ -68,7 +91,7 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<ResponseBookingDto> getUserBookings(Long userId, String state) {
-        if (!userRepository.existsById(userId)) {
+        if (!userCache.exists(userId)) {
             throw new NotFoundException("Пользователь с id " + userId + " не найден");
         }
 
@@ -79,7 +102,7 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<ResponseBookingDto> getOwnerBookings(Long ownerId, String state) {
-        if (!userRepository.existsById(ownerId)) {
+        if (!userCache.exists(ownerId)) {
             throw new NotFoundException("Пользователь с id '" + ownerId + "' не найден");
         }
 
@@ -88,6 +111,33 @@ public class BookingServiceImpl implements BookingService {
                 .toList();
     }
 
+    @Override
+    public ItemAvailabilityDto getAvailability(long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new BadRequestException("Дата окончания должна быть позже даты начала");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Предмет с id '" + itemId + "' не найден");
+        }
+
+        boolean available = bookingCalendar.isFree(itemId, start, end);
+        return ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(end)
+                .available(available)
+                .nextFreeStart(available ? start : bookingCalendar.nextFreeSlot(itemId, start, end))
+                .build();
+    }
+
+    private void checkItemIsFree(Booking booking) {
+        if (booking.getStartDate() == null || booking.getEndDate() == null) {
+            return;
+        }
+        if (!bookingCalendar.isFree(booking.getItem().getId(), booking.getStartDate(), booking.getEndDate())) {
+            throw new BadRequestException("Предмет уже забронирован на это время");
+        }
+    }
 
     private ResponseBookingDto prepareAndMakeBookingDto(Booking booking) {
 
@@ -107,37 +157,38 @@ public class BookingServiceImpl implements BookingService {
 
 
     private List<Booking> getBookingsByState(Long id, String state, String ownerOrUser) {
-        LocalDateTime now = LocalDateTime.now();
         Sort newestFirst = Sort.by(Sort.Direction.DESC, "startDate");
 
 
         return switch (state.toLowerCase()) {
             case "all" -> ownerOrUser.equals("user")
                     ? bookingRepository.findByBookerId(id, newestFirst)
-                    : bookingRepository.findByItemOwnerId(id);
+                    : bookingRepository.findByOwnerId(id, newestFirst);
 
-            case "current" -> ownerOrUser.equals("user")
-                    ? bookingRepository.findByBookerIdAndStartDateBeforeAndEndDateAfter(id, now, now, newestFirst)
-                    : bookingRepository.findByItemOwnerIdAndStartDateBeforeAndEndDateAfter(id, now, now, newestFirst);
+            case "current" -> findByPhase(id, BookingPhase.CURRENT, ownerOrUser, newestFirst);
 
-            case "past" -> ownerOrUser.equals("user")
-                    ? bookingRepository.findByBookerIdAndEndDateBefore(id, now, newestFirst)
-                    : bookingRepository.findByItemOwnerIdAndEndDateBefore(id, now, newestFirst);
+            case "past" -> findByPhase(id, BookingPhase.PAST, ownerOrUser, newestFirst);
 
-            case "future" -> ownerOrUser.equals("user")
-                    ? bookingRepository.findByBookerIdAndStartDateAfter(id, now, newestFirst)
-                    : bookingRepository.findByItemOwnerIdAndStartDateAfter(id, now, newestFirst);
+            case "future" -> findByPhase(id, BookingPhase.FUTURE, ownerOrUser, newestFirst);
 
-            case "waiting" -> ownerOrUser.equals("user")
-                    ? bookingRepository.findByBookerIdAndStatusContaining(id, "WAITING", newestFirst)
-                    : bookingRepository.findByItemOwnerIdAndStatusContaining(id, "WAITING", newestFirst);
+            case "waiting" -> findByStatus(id, StatusBook.WAITING, ownerOrUser, newestFirst);
 
-            case "rejected" -> ownerOrUser.equals("user")
-                    ? bookingRepository.findByBookerIdAndStatusContaining(id, "REJECTED", newestFirst)
-                    : bookingRepository.findByItemOwnerIdAndStatusContaining(id, "REJECTED", newestFirst);
+            case "rejected" -> findByStatus(id, StatusBook.REJECTED, ownerOrUser, newestFirst);
 
             default -> throw new BadRequestException("Не верно введенный статус");
         };
     }
 
+    private List<Booking> findByPhase(Long id, BookingPhase phase, String ownerOrUser, Sort sort) {
+        return ownerOrUser.equals("user")
+                ? bookingRepository.findByBookerIdAndPhase(id, phase, sort)
+                : bookingRepository.findByOwnerIdAndPhase(id, phase, sort);
+    }
+
+    private List<Booking> findByStatus(Long id, StatusBook status, String ownerOrUser, Sort sort) {
+        return ownerOrUser.equals("user")
+                ? bookingRepository.findByBookerIdAndStatus(id, status, sort)
+                : bookingRepository.findByOwnerIdAndStatus(id, status, sort);
+    }
+
 }
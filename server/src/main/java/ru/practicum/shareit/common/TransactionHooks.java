@@ -0,0 +1,53 @@
+package ru.practicum.shareit.common;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Действия, привязанные к завершению текущей транзакции, для кэшей и очередей в памяти процесса.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TransactionHooks {
+
+    /**
+     * Выполняет действие после коммита текущей транзакции, а вне транзакции — сразу.
+     * При откате действие не выполняется.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Выполняет сброс сразу и повторно после завершения транзакции, чтобы загрузка,
+     * успевшая прочитать старое состояние до коммита, не пережила его.
+     */
+    public static void nowAndAfterCompletion(Runnable reset) {
+        reset.run();
+        afterCompletion(reset);
+    }
+
+    /**
+     * Выполняет действие после коммита или отката текущей транзакции; вне транзакции ничего не делает.
+     */
+    public static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Основной пул строится из spring.datasource.* и настраивается через spring.datasource.hikari.*,
+ * как пул, который создал бы Spring Boot. Если задан shareit.datasource.replica.url (несколько реплик
+ * перечисляются через запятую), поверх него и реплик ставится ReplicaRoutingDataSource.
+ * Реплики держат все данные, поэтому чтение любой из них не требует сбора с нескольких баз,
+ * а запись всегда идет в основную. LazyConnectionDataSourceProxy откладывает
+ * получение соединения до первого запроса, когда признак read-only транзакции уже известен.
+ */
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 DataSourceProperties properties,
+                                 ReadYourWritesTracker tracker,
+                                 ReplicaSelector selector,
+                                 @Value("${shareit.datasource.replica.url:}") String replicaUrls,
+                                 @Value("${shareit.datasource.replica.username:${spring.datasource.username:}}")
+                                 String replicaUsername,
+                                 @Value("${shareit.datasource.replica.password:${spring.datasource.password:}}")
+                                 String replicaPassword) {
+        List<String> urls = new ArrayList<>();
+        for (String url : replicaUrls.split(",")) {
+            if (!url.isBlank()) {
+                urls.add(url.trim());
+            }
+        }
+        if (urls.isEmpty()) {
+            return primaryDataSource;
+        }
+
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(i))
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, tracker, selector);
+        routing.afterPropertiesSet();
+        log.info("Чтение в read-only транзакциях направляется на реплики {}", urls);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Jump consistent hash (Lamping, Veach, 2014): пользователи распределяются по репликам поровну,
+ * а при добавлении реплики на нее переходит только 1/N пользователей, остальные продолжают
+ * читать с прогретой реплики. Хеш не хранит состояния, поэтому все узлы выбирают одинаково.
+ */
+@Component
+public class JumpHashReplicaSelector implements ReplicaSelector {
+
+    @Override
+    public int replicaOf(long userId, int replicas) {
+        long key = userId;
+        long bucket = -1;
+        long next = 0;
+        while (next < replicas) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Время последней записи пользователей. В течение sticky-window после записи чтения этого
+ * пользователя идут на основную БД. Хранится не больше sticky-max-users самых свежих записей.
+ */
+@Component
+public class ReadYourWritesTracker {
+    private final long windowMillis;
+    private final Map<Long, Long> lastWrites;
+
+    public ReadYourWritesTracker(@Value("${shareit.datasource.sticky-window-millis:2000}") long windowMillis,
+                                 @Value("${shareit.datasource.sticky-max-users:10000}") int maxUsers) {
+        this.windowMillis = windowMillis;
+        this.lastWrites = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    public void recordWrite(long userId) {
+        lastWrites.put(userId, System.currentTimeMillis());
+    }
+
+    public boolean recentlyWrote(long userId) {
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt != null && System.currentTimeMillis() - writtenAt < windowMillis;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.datasource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.common.TransactionHooks;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Read-only транзакции идут на реплики, все остальное — на основную БД.
+ * Реплику пользователя выбирает ReplicaSelector, чтения без пользователя распределяются случайно.
+ * Пользователь, который недавно что-то записал, читает с основной БД, пока не истечет окно
+ * ReadYourWritesTracker: реплика может еще не догнать его запись.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+
+    private final ReadYourWritesTracker tracker;
+    private final ReplicaSelector selector;
+    private final int replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker tracker,
+                                    ReplicaSelector selector) {
+        this.tracker = tracker;
+        this.selector = selector;
+        this.replicas = replicas.size();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long userId = RequestUserFilter.currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionHooks.afterCommit(() -> tracker.recordWrite(userId));
+            }
+            return PRIMARY;
+        }
+        if (userId != null && tracker.recentlyWrote(userId)) {
+            return PRIMARY;
+        }
+        stopSecondLevelCachePuts();
+        return userId != null
+                ? selector.replicaOf(userId, replicas)
+                : ThreadLocalRandom.current().nextInt(replicas);
+    }
+
+    /**
+     * Сущность, прочитанная с отстающей реплики, не кладется в кэш второго уровня: оттуда ее получили бы
+     * и транзакции на основной БД. Сессия транзакции только читает кэш, прежний режим возвращается
+     * после ее завершения, так как open-in-view может переиспользовать сессию в следующей транзакции.
+     */
+    private static void stopSecondLevelCachePuts() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                Session session = holder.getEntityManager().unwrap(Session.class);
+                CacheMode previous = session.getCacheMode();
+                session.setCacheMode(CacheMode.GET);
+                TransactionHooks.afterCompletion(() -> session.setCacheMode(previous));
+            }
+        }
+    }
+}
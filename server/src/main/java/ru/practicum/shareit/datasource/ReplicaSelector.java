@@ -0,0 +1,15 @@
+package ru.practicum.shareit.datasource;
+
+/**
+ * Выбирает реплику для read-only транзакций пользователя из X-Sharer-User-Id. Выбор должен быть
+ * детерминированным: тогда брони и предметы пользователя держатся в кэше одной реплики, а каждая
+ * реплика прогревает только свою долю владельцев и арендаторов. Другую схему назначения можно
+ * подставить бином с @Primary.
+ */
+public interface ReplicaSelector {
+
+    /**
+     * Номер реплики от 0 до replicas - 1.
+     */
+    int replicaOf(long userId, int replicas);
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Запоминает X-Sharer-User-Id на время обработки запроса, чтобы маршрутизация
+ * чтений могла учесть недавние записи этого пользователя.
+ * Значение видно только в потоке сервлета. Код, который выполняется в других потоках
+ * (StreamingResponseBody, SseEmitter, SuggestionExecutor), пользователя не видит, и его read-only
+ * транзакции идут на реплику без учета недавних записей. Если такому коду нужны свежие данные
+ * пользователя, он читает их в транзакции без readOnly, которая всегда идет на основную БД.
+ */
+@Component
+public class RequestUserFilter extends OncePerRequestFilter {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+
+    public static Long currentUserId() {
+        return CURRENT_USER.get();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(USER_HEADER);
+        try {
+            if (header != null) {
+                try {
+                    CURRENT_USER.set(Long.parseLong(header.trim()));
+                } catch (NumberFormatException e) {
+                    CURRENT_USER.remove();
+                }
+            }
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT_USER.remove();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.deletion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Физически удаляет помеченных удаленными пользователей и предметы вместе с зависимыми строками.
+ * Удаление идет небольшими пачками, каждая фиксируется отдельно, между пачками делается пауза,
+ * поэтому блокировки на bookings и comments короткие. Строка пользователя или предмета удаляется
+ * последней, когда зависимых строк уже не осталось, и ON DELETE CASCADE ничего не делает.
+ * Если удаленная бронь была последней или следующей в item_booking_summary, ссылка на нее обнуляется
+ * (ON DELETE SET NULL), снимок сбрасывается, а сводка предмета пересчитывается в конце прохода.
+ */
+@Slf4j
+@Component
+public class DeletionPurger {
+    private static final String DELETED_ITEMS = "SELECT id FROM items WHERE deleted_at IS NOT NULL";
+    private static final String DELETED_USERS = "SELECT id FROM users WHERE deleted_at IS NOT NULL";
+    private static final String EXPIRED = "TIMESTAMP '1970-01-01 00:00:00'";
+
+    /**
+     * Шаги в порядке зависимостей: имя шага -> DELETE или UPDATE одной пачки, лимит пачки передается параметром.
+     * Предметы других владельцев, ответившие на запросы удаленного пользователя, не удаляются,
+     * у них только снимается ссылка на запрос.
+     */
+    private static final Map<String, String> STEPS = new LinkedHashMap<>();
+
+    static {
+        STEPS.put("request_suggestions", "DELETE FROM request_suggestions WHERE id IN (SELECT s.id " +
+                "FROM request_suggestions s WHERE s.item_id IN (" + DELETED_ITEMS + ") OR s.request_id IN " +
+                "(SELECT r.request_id FROM requests r WHERE r.user_id IN (" + DELETED_USERS + ")) LIMIT ?)");
+        STEPS.put("request_answers", "UPDATE items SET request_id = NULL WHERE id IN (SELECT i.id FROM items i " +
+                "WHERE i.request_id IN (SELECT r.request_id FROM requests r WHERE r.user_id IN (" + DELETED_USERS + ")) " +
+                "LIMIT ?)");
+        STEPS.put("requests", "DELETE FROM requests WHERE request_id IN (SELECT r.request_id FROM requests r " +
+                "WHERE r.user_id IN (" + DELETED_USERS + ") AND NOT EXISTS " +
+                "(SELECT 1 FROM items i WHERE i.request_id = r.request_id) " +
+                "AND NOT EXISTS (SELECT 1 FROM request_suggestions s WHERE s.request_id = r.request_id) LIMIT ?)");
+        STEPS.put("comments", "DELETE FROM comments WHERE id IN (SELECT c.id FROM comments c " +
+                "WHERE c.item_id IN (" + DELETED_ITEMS + ") LIMIT ?)");
+        STEPS.put("bookings", "DELETE FROM bookings WHERE id IN (SELECT b.id FROM bookings b " +
+                "WHERE b.item_id IN (" + DELETED_ITEMS + ") OR b.booker_id IN (" + DELETED_USERS + ") LIMIT ?)");
+        STEPS.put("summary_last", "UPDATE item_booking_summary SET last_booker_id = NULL, last_start_date = NULL, " +
+                "last_end_date = NULL, valid_until = " + EXPIRED + " WHERE item_id IN (SELECT s.item_id " +
+                "FROM item_booking_summary s WHERE s.last_booking_id IS NULL AND s.last_start_date IS NOT NULL LIMIT ?)");
+        STEPS.put("summary_next", "UPDATE item_booking_summary SET next_booker_id = NULL, next_start_date = NULL, " +
+                "next_end_date = NULL, valid_until = " + EXPIRED + " WHERE item_id IN (SELECT s.item_id " +
+                "FROM item_booking_summary s WHERE s.next_booking_id IS NULL AND s.next_start_date IS NOT NULL LIMIT ?)");
+        STEPS.put("items", "DELETE FROM items WHERE id IN (SELECT i.id FROM items i WHERE i.deleted_at IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM bookings b WHERE b.item_id = i.id) " +
+                "AND NOT EXISTS (SELECT 1 FROM comments c WHERE c.item_id = i.id) " +
+                "AND NOT EXISTS (SELECT 1 FROM request_suggestions s WHERE s.item_id = i.id) LIMIT ?)");
+        STEPS.put("users", "DELETE FROM users WHERE id IN (SELECT u.id FROM users u WHERE u.deleted_at IS NOT NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM items i WHERE i.owner_id = u.id) " +
+                "AND NOT EXISTS (SELECT 1 FROM bookings b WHERE b.booker_id = u.id OR b.owner_id = u.id) " +
+                "AND NOT EXISTS (SELECT 1 FROM requests r WHERE r.user_id = u.id) LIMIT ?)");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemBookingSummaryService summaryService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long pauseMillis;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong pendingUsers = new AtomicLong();
+    private final AtomicLong pendingItems = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public DeletionPurger(JdbcTemplate jdbcTemplate,
+                          ItemBookingSummaryService summaryService,
+                          MeterRegistry meterRegistry,
+                          @Value("${shareit.purge.batch-size:500}") int batchSize,
+                          @Value("${shareit.purge.max-batches-per-run:100}") int maxBatchesPerRun,
+                          @Value("${shareit.purge.pause-millis:50}") long pauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.summaryService = summaryService;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseMillis = pauseMillis;
+        Gauge.builder("shareit.purge.pending", pendingUsers, AtomicLong::get)
+                .tag("entity", "users")
+                .description("Пользователи, помеченные удаленными и еще не удаленные физически")
+                .register(meterRegistry);
+        Gauge.builder("shareit.purge.pending", pendingItems, AtomicLong::get)
+                .tag("entity", "items")
+                .description("Предметы, помеченные удаленными и еще не удаленные физически")
+                .register(meterRegistry);
+        Gauge.builder("shareit.purge.lag", lagSeconds, AtomicLong::get)
+                .baseUnit("seconds")
+                .description("Возраст самой старой неочищенной пометки об удалении")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.purge.delay:5000}")
+    public void purge() {
+        int batches = 0;
+        boolean summariesExpired = false;
+        for (Map.Entry<String, String> step : STEPS.entrySet()) {
+            Counter deleted = meterRegistry.counter("shareit.purge.deleted.rows", "step", step.getKey());
+            int affected;
+            do {
+                if (batches++ >= maxBatchesPerRun) {
+                    updateProgress();
+                    return;
+                }
+                affected = jdbcTemplate.update(step.getValue(), batchSize);
+                deleted.increment(affected);
+                summariesExpired |= affected > 0 && step.getKey().startsWith("summary_");
+                if (affected > 0) {
+                    pause();
+                }
+            } while (affected > 0);
+        }
+        if (summariesExpired) {
+            summaryService.rollForward();
+        }
+        updateProgress();
+    }
+
+    private void updateProgress() {
+        pendingUsers.set(count("SELECT COUNT(*) FROM users WHERE deleted_at IS NOT NULL"));
+        pendingItems.set(count("SELECT COUNT(*) FROM items WHERE deleted_at IS NOT NULL"));
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(deleted_at) FROM (" +
+                "SELECT MIN(deleted_at) AS deleted_at FROM users UNION ALL " +
+                "SELECT MIN(deleted_at) AS deleted_at FROM items) pending", Timestamp.class);
+        lagSeconds.set(oldest == null ? 0 : Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toSeconds());
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Очистка удаленных записей прервана");
+        }
+    }
+}
@@ -1,24 +1,72 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+@Slf4j
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
 public class ItemController {
+    private static final int STREAM_BATCH_SIZE = 500;
 
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Все предметы одним JSON-массивом. Предметы читаются страницами по id и пишутся
+     * в ответ через JsonGenerator по мере чтения, в памяти держится не больше одной страницы.
+     * Первая страница читается до начала ответа, поэтому ее ошибка возвращается обычным статусом.
+     * Ошибка после первой отправки уже не может изменить статус 200: массив тогда не закрывается,
+     * а исключение пробрасывается и сервлет-контейнер обрывает соединение, так что клиент получает
+     * ошибку чтения, а не обрезанный, но корректный JSON.
+     */
     @GetMapping("/all")
-    public List<ItemDto> allUsers() {
-        return itemService.allItems();
+    public ResponseEntity<StreamingResponseBody> allItems() {
+        List<ItemDto> firstPage = itemService.allItems(0, STREAM_BATCH_SIZE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                generator.writeStartArray();
+                List<ItemDto> page = firstPage;
+                long afterId = 0;
+                try {
+                    while (true) {
+                        for (ItemDto item : page) {
+                            generator.writeObject(item);
+                            afterId = item.getId();
+                        }
+                        generator.flush();
+                        if (page.size() < STREAM_BATCH_SIZE) {
+                            break;
+                        }
+                        page = itemService.allItems(afterId, STREAM_BATCH_SIZE);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Выдача всех предметов прервана после предмета с id {}", afterId, e);
+                    throw e;
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/{itemId}")
@@ -32,7 +80,14 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public List<ItemDto> itemSearch(@RequestParam() String text) {
+    public List<ItemDto> itemSearch(@RequestParam() String text,
+                                    @RequestParam(required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                    @RequestParam(required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        if (start != null && end != null) {
+            return itemService.searchAvailableItems(text, start, end);
+        }
         return itemService.searchItem(text);
     }
 
@@ -55,6 +110,21 @@ public class ItemController {
         itemService.deleteItem(userId, id);
     }
 
+    @GetMapping("/{itemId}/comments")
+    public List<CommentDTO> getComments(@PathVariable long itemId,
+                                        @RequestParam(required = false) Long beforeId,
+                                        @RequestParam(defaultValue = "20") int size) {
+        return itemService.itemComments(itemId, beforeId == null ? Long.MAX_VALUE : beforeId, size);
+    }
+
+    @GetMapping("/comments/search")
+    public List<CommentDTO> searchComments(@RequestParam String text,
+                                           @RequestParam(required = false) Long ownerId,
+                                           @RequestParam(required = false) Long beforeId,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return itemService.searchComments(text, ownerId, beforeId == null ? Long.MAX_VALUE : beforeId, size);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDTO addComment(@RequestHeader("X-Sharer-User-Id") long userId,
                                  @PathVariable long itemId,
@@ -7,6 +7,7 @@ import lombok.Data;
 @Builder
 public class CommentDTO {
     private long id;
+    private Long itemId;
     private String authorName;
     private String text;
     private String created;
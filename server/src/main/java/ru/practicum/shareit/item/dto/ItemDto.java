@@ -17,6 +17,7 @@ public class ItemDto {
     BookingShortDto nextBooking;
     BookingShortDto lastBooking;
     List<CommentDTO> comments;
+    private Long commentsCount;
     private Long requestId;
 }
 
@@ -23,6 +23,7 @@ public final class CommentMapper {
 
         return CommentDTO.builder()
                 .id(comment.getId())
+                .itemId(comment.getItem().getId())
                 .authorName(comment.getAuthorName())
                 .text(comment.getText())
                 .created(comment.getCreated().toString())
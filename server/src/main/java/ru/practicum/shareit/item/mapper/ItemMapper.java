@@ -9,6 +9,7 @@ import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemBookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
@@ -26,18 +27,31 @@ public final class ItemMapper {
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.getAvailable())
+                .requestId(item.getRequestId())
                 .comments(comments)
                 .nextBooking(nextBookingShort)
                 .lastBooking(latestBookingShort)
                 .build();
     }
 
+    public static ItemDto mapToDTO(Item item, List<CommentDTO> comments, ItemBookingSummary summary) {
+        ItemDto dto = mapToDTO(item, comments, null, null);
+        if (summary != null && summary.getNextBooking() != null) {
+            dto.setNextBooking(BookingMapper.mapToShortDto(summary.getNextBooking()));
+        }
+        if (summary != null && summary.getLastBooking() != null) {
+            dto.setLastBooking(BookingMapper.mapToShortDto(summary.getLastBooking()));
+        }
+        return dto;
+    }
+
     public static Item mapToItem(User user, ItemDto itemDto) {
         return Item.builder()
                 .owner(user)
                 .name(itemDto.getName())
                 .description(itemDto.getDescription())
                 .available(itemDto.getAvailable())
+                .requestId(itemDto.getRequestId())
                 .build();
     }
 
@@ -2,8 +2,14 @@ package ru.practicum.shareit.item.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @ToString
@@ -11,6 +17,9 @@ import ru.practicum.shareit.user.model.User;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
+@DynamicUpdate
+@SQLRestriction("deleted_at IS NULL")
 @Table(name = "items")
 public class Item {
     @Id
@@ -31,4 +40,10 @@ public class Item {
     @Column(name = "available")
     private Boolean available;
 
+    @Column(name = "request_id")
+    private Long requestId;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
 }
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.item.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Предрассчитанные ближайшие прошедшая и будущая подтверждённые брони предмета.
+ * Строка пересчитывается при создании и смене статуса брони, а также фоновым заданием,
+ * когда наступает момент {@code validUntil}.
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "item_booking_summary")
+public class ItemBookingSummary {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "bookingId", column = @Column(name = "last_booking_id")),
+            @AttributeOverride(name = "bookerId", column = @Column(name = "last_booker_id")),
+            @AttributeOverride(name = "startDate", column = @Column(name = "last_start_date")),
+            @AttributeOverride(name = "endDate", column = @Column(name = "last_end_date"))
+    })
+    private BookingSnapshot lastBooking;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "bookingId", column = @Column(name = "next_booking_id")),
+            @AttributeOverride(name = "bookerId", column = @Column(name = "next_booker_id")),
+            @AttributeOverride(name = "startDate", column = @Column(name = "next_start_date")),
+            @AttributeOverride(name = "endDate", column = @Column(name = "next_end_date"))
+    })
+    private BookingSnapshot nextBooking;
+
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil;
+}
@@ -1,15 +1,31 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
-import ru.practicum.shareit.item.model.Item;
 
 import java.util.Collection;
 import java.util.List;
 
-public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByItemId(long itemId);
+public interface CommentRepository extends JpaRepository<Comment, Long>, CommentSearchRepository {
+    /**
+     * Не больше limit последних отзывов на каждый из предметов за один запрос.
+     */
+    @Query(value = "SELECT id, item_id, author, text, created FROM (" +
+            "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.item_id ORDER BY c.id DESC) AS rn " +
+            "FROM comments c WHERE c.item_id IN (?1)) ranked " +
+            "WHERE rn <= ?2 ORDER BY item_id, id DESC", nativeQuery = true)
+    List<Comment> findRecentForItems(Collection<Long> itemIds, int limit);
 
-    List<Comment> findByItemIn(Collection<Item> items, Sort sort);
+    @Query("SELECT c.item.id AS itemId, COUNT(c) AS total FROM Comment c WHERE c.item.id IN ?1 GROUP BY c.item.id")
+    List<CommentCount> countForItems(Collection<Long> itemIds);
+
+    List<Comment> findByItemIdAndIdLessThanOrderByIdDesc(long itemId, long beforeId, Limit limit);
+
+    interface CommentCount {
+        Long getItemId();
+
+        Long getTotal();
+    }
 }
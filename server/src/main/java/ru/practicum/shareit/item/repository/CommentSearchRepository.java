@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.model.Comment;
+
+import java.util.List;
+
+public interface CommentSearchRepository {
+    /**
+     * Отзывы, текст которых содержит все слова запроса, от новых к старым.
+     * Выборка продолжается с отзывов, id которых меньше beforeId; ownerId ограничивает поиск предметами владельца.
+     */
+    List<Comment> searchByText(String text, Long ownerId, long beforeId, int limit);
+}
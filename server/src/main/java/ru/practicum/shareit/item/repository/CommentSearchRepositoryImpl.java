@@ -0,0 +1,73 @@
+package ru.practicum.shareit.item.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import ru.practicum.shareit.item.model.Comment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * В Postgres поиск идет по GIN-индексу comments_text_fts_idx (schema-postgresql.sql), выражение в запросе
+ * должно совпадать с выражением индекса. В H2 полнотекстового индекса нет, поэтому там текст, как и в
+ * plainto_tsquery, делится на слова и каждое слово должно встретиться в комментарии (LIKE на слово через AND).
+ */
+public class CommentSearchRepositoryImpl implements CommentSearchRepository {
+    private static final String POSTGRES_MATCH = "to_tsvector('simple', c.text) @@ plainto_tsquery('simple', :text)";
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean postgres;
+
+    public CommentSearchRepositoryImpl(@Value("${spring.sql.init.platform:h2}") String platform) {
+        this.postgres = "postgresql".equals(platform);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Comment> searchByText(String text, Long ownerId, long beforeId, int limit) {
+        List<String> words = postgres ? List.of() : words(text);
+        if (!postgres && words.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT c.* FROM comments c JOIN items i ON i.id = c.item_id " +
+                "WHERE " + (postgres ? POSTGRES_MATCH : fallbackMatch(words.size())) +
+                " AND c.id < :beforeId AND i.deleted_at IS NULL" +
+                (ownerId == null ? "" : " AND i.owner_id = :ownerId") +
+                " ORDER BY c.id DESC";
+        Query query = entityManager.createNativeQuery(sql, Comment.class)
+                .setParameter("beforeId", beforeId)
+                .setMaxResults(limit);
+        if (postgres) {
+            query.setParameter("text", text);
+        }
+        for (int i = 0; i < words.size(); i++) {
+            query.setParameter("word" + i, words.get(i));
+        }
+        if (ownerId != null) {
+            query.setParameter("ownerId", ownerId);
+        }
+        return query.getResultList();
+    }
+
+    private static List<String> words(String text) {
+        return Arrays.stream(NON_WORD.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static String fallbackMatch(int wordCount) {
+        return IntStream.range(0, wordCount)
+                .mapToObj(i -> "LOWER(c.text) LIKE CONCAT('%', :word" + i + ", '%')")
+                .collect(Collectors.joining(" AND ", "(", ")"));
+    }
+}
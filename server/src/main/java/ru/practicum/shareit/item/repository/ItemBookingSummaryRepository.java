@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long> {
+
+    List<ItemBookingSummary> findByValidUntilBeforeOrderByValidUntil(LocalDateTime now, Limit limit);
+
+    @Query("SELECT s.itemId FROM ItemBookingSummary s " +
+            "WHERE s.lastBooking.bookerId = ?1 OR s.nextBooking.bookerId = ?1")
+    List<Long> findItemIdsByBookerId(long bookerId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM ItemBookingSummary s WHERE s.itemId = ?1")
+    int deleteByItemId(long itemId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM ItemBookingSummary s WHERE s.itemId IN (SELECT i.id FROM Item i WHERE i.owner.id = ?1)")
+    int deleteByOwnerId(long ownerId);
+}
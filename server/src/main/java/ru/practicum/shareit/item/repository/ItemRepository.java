@@ -1,22 +1,59 @@
 package ru.practicum.shareit.item.repository;
 
-
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.model.StatusBook;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
     boolean existsByIdAndOwnerId(Long userId, Long itemId);
 
+    Optional<Item> findByIdAndOwnerId(long itemId, long ownerId);
+
     List<Item> findByOwnerId(long userId);
 
+    List<Item> findByRequestIdIn(Collection<Long> requestIds);
+
+    List<Item> findByIdGreaterThanOrderById(long afterId, Limit limit);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Item i SET i.deletedAt = ?2 WHERE i.id = ?1 AND i.deletedAt IS NULL")
+    int markDeleted(long itemId, LocalDateTime deletedAt);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Item i SET i.deletedAt = ?2 WHERE i.owner.id = ?1 AND i.deletedAt IS NULL")
+    int markDeletedByOwner(long ownerId, LocalDateTime deletedAt);
+
     @Query("SELECT i " +
             "FROM Item i " +
             "WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', ?1, '%')) OR " +
             "LOWER(i.description) LIKE LOWER(CONCAT('%', ?1, '%'))) AND " +
             "i.available = true")
     List<Item> findByNameContainingOrDescriptionContainingAndAvailableTrue(String text);
+
+    @Query("SELECT i " +
+            "FROM Item i " +
+            "WHERE (LOWER(i.name) LIKE CONCAT('%', ?1, '%') OR " +
+            "LOWER(i.description) LIKE CONCAT('%', ?1, '%')) AND " +
+            "i.available = true " +
+            "ORDER BY i.id DESC")
+    List<Item> searchNewest(String word, Limit limit);
+
+    @Query("SELECT i " +
+            "FROM Item i " +
+            "WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', ?1, '%')) OR " +
+            "LOWER(i.description) LIKE LOWER(CONCAT('%', ?1, '%'))) AND " +
+            "i.available = true AND " +
+            "NOT EXISTS (SELECT b.id FROM Booking b " +
+            "WHERE b.item.id = i.id AND b.status IN ?4 AND b.startDate < ?3 AND b.endDate > ?2)")
+    List<Item> searchAvailableInPeriod(String text, LocalDateTime start, LocalDateTime end,
+                                       Collection<StatusBook> occupying);
 }
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.BookingSnapshot;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemBookingSummaryService {
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${shareit.booking-summary.batch-size:500}")
+    private int batchSize = 500;
+
+    @Transactional(readOnly = true)
+    public Map<Long, ItemBookingSummary> findForItems(Collection<Long> itemIds) {
+        return summaryRepository.findAllById(itemIds).stream()
+                .collect(toMap(ItemBookingSummary::getItemId, Function.identity()));
+    }
+
+    @Transactional
+    public void refresh(long itemId) {
+        summaryRepository.save(calculate(itemId, LocalDateTime.now()));
+    }
+
+    /**
+     * Пересчитывает сводки, в которых осталась бронь удаленного арендатора: его брони скрыты
+     * и в новом расчете уже не участвуют.
+     */
+    @Transactional
+    public void refreshForBooker(long bookerId) {
+        LocalDateTime now = LocalDateTime.now();
+        summaryRepository.findItemIdsByBookerId(bookerId)
+                .forEach(itemId -> summaryRepository.save(calculate(itemId, now)));
+    }
+
+    @Transactional
+    public void remove(long itemId) {
+        summaryRepository.deleteByItemId(itemId);
+    }
+
+    @Transactional
+    public void removeForOwner(long ownerId) {
+        summaryRepository.deleteByOwnerId(ownerId);
+    }
+
+    /**
+     * Каждая порция истекших сводок пересчитывается и фиксируется в своей транзакции,
+     * чтобы долгий проход не держал одну транзакцию и блокировки строк до конца.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking-summary.roll-forward-delay:60000}")
+    public void rollForward() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        int recalculated;
+        do {
+            recalculated = transactionTemplate.execute(status -> {
+                List<ItemBookingSummary> expired =
+                        summaryRepository.findByValidUntilBeforeOrderByValidUntil(now, Limit.of(batchSize));
+                expired.forEach(summary -> summaryRepository.save(calculate(summary.getItemId(), now)));
+                return expired.size();
+            });
+        } while (recalculated == batchSize);
+    }
+
+    private ItemBookingSummary calculate(long itemId, LocalDateTime now) {
+        Booking last = bookingRepository.getNearliestPastBooking(itemId, now);
+        Booking next = bookingRepository.getNearliestFutureBooking(itemId, now);
+        LocalDateTime nearestEnd = bookingRepository.getNearliestBookingEnd(itemId, now);
+
+        return ItemBookingSummary.builder()
+                .itemId(itemId)
+                .lastBooking(toSnapshot(last))
+                .nextBooking(toSnapshot(next))
+                .validUntil(earliest(next == null ? null : next.getStartDate(), nearestEnd))
+                .build();
+    }
+
+    private BookingSnapshot toSnapshot(Booking booking) {
+        if (booking == null) {
+            return null;
+        }
+        return BookingSnapshot.builder()
+                .bookingId(booking.getId())
+                .bookerId(booking.getBooker().getId())
+                .startDate(booking.getStartDate())
+                .endDate(booking.getEndDate())
+                .build();
+    }
+
+    private LocalDateTime earliest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+}
@@ -4,11 +4,12 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Transactional(readOnly = true)
 public interface ItemService {
-    List<ItemDto> allItems();
+    List<ItemDto> allItems(long afterId, int size);
 
     ItemDto itemById(Long itemId);
 
@@ -25,6 +26,12 @@ public interface ItemService {
 
     List<ItemDto> searchItem(String text);
 
+    List<ItemDto> searchAvailableItems(String text, LocalDateTime start, LocalDateTime end);
+
+    List<CommentDTO> itemComments(long itemId, long beforeId, int size);
+
+    List<CommentDTO> searchComments(String text, Long ownerId, long beforeId, int size);
+
     @Transactional
     CommentDTO addComment(long userId, long itemId, CommentDTO commentDto);
 
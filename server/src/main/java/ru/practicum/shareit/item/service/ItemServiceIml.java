@@ -2,10 +2,11 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingCalendar;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ConditionsNotMatchException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -17,49 +18,54 @@ import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.repository.RequestRepository;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.request.service.RequestFeed;
+import ru.practicum.shareit.request.service.RequestPercolator;
+import ru.practicum.shareit.user.model.UserSnapshot;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
-
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.toList;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceIml implements ItemService {
+    private static final int MAX_COMMENTS_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
     private final RequestRepository requestRepository;
-
+    private final ItemBookingSummaryService summaryService;
+    private final UserCache userCache;
+    private final RequestFeed requestFeed;
+    private final RequestPercolator percolator;
+    private final BookingCalendar bookingCalendar;
+
+    @Value("${shareit.item.recent-comments:10}")
+    private int recentCommentsLimit = 10;
+
+    /**
+     * Страница предметов по возрастанию id для потоковой выдачи всех предметов.
+     * Отзывы раскладываются тем же проходом курсора, что и в остальных выборках (attachRecentComments),
+     * последняя и следующая брони на этой выдаче не показываются.
+     */
     @Override
-    public List<ItemDto> allItems() {
-        List<Item> items = itemRepository.findAll();
-
-        if (items.isEmpty()) {
-            return List.of();
+    public List<ItemDto> allItems(long afterId, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Размер страницы должен быть положительным");
         }
-
-        List<Comment> allComments = commentRepository.findByItemIn(items, Sort.by(Sort.Direction.DESC, "created"));
-        Map<Item, List<Comment>> commentsByItem = allComments.stream()
-                .collect(groupingBy(Comment::getItem));
-
-        Map<Item, List<Booking>> bookingsMap = bookingRepository.findApprovedForItems(items, Sort.by(Sort.Direction.DESC, "startDate"))
-                .stream()
-                .collect(groupingBy(Booking::getItem, toList()));
-
-        return items.stream()
-                .map(item -> prepareAndMakeItemDto(item, bookingsMap, commentsByItem, false))
-                .toList();
+        return prepareAndMakeItemDtos(
+                itemRepository.findByIdGreaterThanOrderById(afterId, Limit.of(Math.min(size, MAX_PAGE_SIZE))), Map.of());
     }
 
     @Override
@@ -67,33 +73,43 @@ public class ItemServiceIml implements ItemService {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Предмет с id '" + itemId + "' не найден"));
 
-        bookingRepository.existsByItemId(itemId);
-
-        return prepareAndMakeItemDto(item, false);
+        return prepareAndMakeItemDto(item);
     }
 
+    /**
+     * Ответ на запрос хранится в items.request_id, поэтому создание предмета — одна вставка,
+     * сам запрос только проверяется на существование и не изменяется.
+     */
     @Override
     public ItemDto createItem(Long userId, ItemDto itemDto) {
-        Item item = itemRepository.save(prepareAndMakeItemPOJO(userId, itemDto));
-        if (itemDto.getRequestId() != null) {
-            ItemRequest request = requestRepository.findById(itemDto.getRequestId()).orElseThrow(() ->
-                    new NotFoundException("Запрос с таким id: " + itemDto.getRequestId() + " не найден"));
-
-            request.getItems().add(item.getId());
-            requestRepository.save(request);
+        Item item = prepareAndMakeItemPOJO(userId, itemDto);
+        if (itemDto.getRequestId() != null && !requestRepository.existsById(itemDto.getRequestId())) {
+            throw new NotFoundException("Запрос с таким id: " + itemDto.getRequestId() + " не найден");
         }
 
-        return prepareAndMakeItemDto(item, false);
+        Item saved = itemRepository.save(item);
+        if (saved.getRequestId() != null) {
+            requestFeed.onAnswered(saved.getRequestId(), RequestMapper.mapToItemResponse(saved));
+            percolator.onRequestAnswered(saved.getRequestId());
+        } else if (Boolean.TRUE.equals(saved.getAvailable())) {
+            percolator.onItemCreated(saved);
+        }
+        return prepareAndMakeItemDto(saved);
     }
 
+    /**
+     * Предмет читается одним запросом сразу с проверкой владельца, а при фиксации транзакции
+     * Item с @DynamicUpdate обновляет только действительно изменившиеся колонки.
+     */
     @Override
     public ItemDto updateItem(Long userId, Long itemId, ItemDto itemDto) {
-        if (!itemRepository.existsByIdAndOwnerId(itemId, userId)) {
-            throw new ConditionsNotMatchException("Только владелец может изменять данные предмета");
+        Item item = itemRepository.findByIdAndOwnerId(itemId, userId)
+                .orElseThrow(() -> new ConditionsNotMatchException("Только владелец может изменять данные предмета"));
+        ItemMapper.updateFields(item, ItemMapper.mapToItem(null, itemDto));
+        if (item.getRequestId() != null) {
+            requestFeed.onAnswered(item.getRequestId(), RequestMapper.mapToItemResponse(item));
         }
-        Item olditem = itemRepository.findById(itemId).orElseThrow(() -> new NotFoundException("Предмет не найден"));
-        ItemMapper.updateFields(olditem, prepareAndMakeItemPOJO(userId, itemDto));
-        return prepareAndMakeItemDto(olditem, false);
+        return prepareAndMakeItemDto(item);
     }
 
     @Override
@@ -101,15 +117,21 @@ public class ItemServiceIml implements ItemService {
         if (!itemRepository.existsByIdAndOwnerId(itemId, userId)) {
             throw new ConditionsNotMatchException("Только владелец может изменять данные предмета");
         }
-        itemRepository.deleteById(itemId);
+        itemRepository.markDeleted(itemId, LocalDateTime.now());
+        bookingRepository.hideByItemId(itemId);
+        summaryService.remove(itemId);
+        bookingCalendar.forgetItem(itemId);
+        requestFeed.invalidate();
     }
 
     @Override
     public List<ItemDto> itemsOfUser(Long userId) {
-        userRepository.existsById(userId);
-        return itemRepository.findByOwnerId(userId).stream()
-                .map(item -> prepareAndMakeItemDto(item, true))
-                .toList();
+        List<Item> items = itemRepository.findByOwnerId(userId);
+        Map<Long, ItemBookingSummary> summaries = summaryService.findForItems(items.stream()
+                .map(Item::getId)
+                .toList());
+
+        return prepareAndMakeItemDtos(items, summaries);
     }
 
     @Override
@@ -117,93 +139,146 @@ public class ItemServiceIml implements ItemService {
         if (text.isBlank()) {
             return List.of();
         }
-        return itemRepository.findByNameContainingOrDescriptionContainingAndAvailableTrue(text.toLowerCase()).stream()
-                .map(item -> prepareAndMakeItemDto(item, false))
+        return prepareAndMakeItemDtos(
+                itemRepository.findByNameContainingOrDescriptionContainingAndAvailableTrue(text.toLowerCase()), Map.of());
+    }
+
+    @Override
+    public List<ItemDto> searchAvailableItems(String text, LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new BadRequestException("Дата окончания должна быть позже даты начала");
+        }
+        if (text.isBlank()) {
+            return List.of();
+        }
+        return prepareAndMakeItemDtos(itemRepository.searchAvailableInPeriod(text.toLowerCase(), start, end,
+                BookingCalendar.OCCUPYING), Map.of());
+    }
+
+    @Override
+    public List<CommentDTO> itemComments(long itemId, long beforeId, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Размер страницы должен быть положительным");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Предмет с id '" + itemId + "' не найден");
+        }
+        return commentRepository.findByItemIdAndIdLessThanOrderByIdDesc(itemId, beforeId,
+                        Limit.of(Math.min(size, MAX_COMMENTS_PAGE_SIZE))).stream()
+                .map(CommentMapper::mapToDTO)
+                .toList();
+    }
+
+    @Override
+    public List<CommentDTO> searchComments(String text, Long ownerId, long beforeId, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Размер страницы должен быть положительным");
+        }
+        if (text.isBlank()) {
+            return List.of();
+        }
+        return commentRepository.searchByText(text.trim(), ownerId, beforeId, Math.min(size, MAX_COMMENTS_PAGE_SIZE))
+                .stream()
+                .map(CommentMapper::mapToDTO)
                 .toList();
     }
 
     @Override
     public CommentDTO addComment(long userId, long itemId, CommentDTO commentDto) {
-        final List<Booking> bookings = bookingRepository.findByItemIdAndBookerId(itemId, userId);
-        log.info("Время бронирования ----------------------- {}", bookings);
-        final LocalDateTime now = LocalDateTime.now();
-        log.info("Время ------------------------------ {}", LocalDateTime.now());
-        if (bookings.stream().noneMatch(b -> b.isFinished(now))) {
+        if (!bookingRepository.existsFinishedApproved(userId, itemId, LocalDateTime.now())) {
             throw new BadRequestException("Чтобы оставить отзыв на предмет," +
                     " нужно воспользоваться им");
         }
 
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new NotFoundException("Предмет с id '" + itemId + "' не найден"));
-
-        User user = userRepository.findById(userId)
+        UserSnapshot user = userCache.find(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id '" + userId + "' не найден"));
 
         commentDto.setId(itemId);
         commentDto.setAuthorName(user.getName());
-        Comment comment = CommentMapper.mapToComment(item, commentDto);
+        Comment comment = CommentMapper.mapToComment(itemRepository.getReferenceById(itemId), commentDto);
 
         return CommentMapper.mapToDTO(commentRepository.save(comment));
     }
 
 
-    private ItemDto prepareAndMakeItemDto(Item item, boolean initDate) {
-        Booking latestBooking = null;
-        Booking nextBooking = null;
-
-        if (bookingRepository.existsByItemId(item.getId()) && initDate) {
-            latestBooking = bookingRepository.getNearliestPastBooking(item.getId());
-            nextBooking = bookingRepository.getNearliestFutureBooking(item.getId());
-        }
-
-        List<CommentDTO> comments = commentRepository.findByItemId(item.getId()).stream()
-                .map(CommentMapper::mapToDTO)
-                .toList();
-
-        return ItemMapper.mapToDTO(item, comments, nextBooking, latestBooking);
+    private ItemDto prepareAndMakeItemDto(Item item) {
+        return prepareAndMakeItemDtos(List.of(item), Map.of()).getFirst();
     }
 
-
-    private Item prepareAndMakeItemPOJO(long userId, ItemDto itemDto) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id '" + userId + "' не найден"));
-
-        return ItemMapper.mapToItem(user, itemDto);
+    private List<ItemDto> prepareAndMakeItemDtos(List<Item> items, Map<Long, ItemBookingSummary> summaries) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        List<ItemDto> dtos = new ArrayList<>(items.size());
+        for (Item item : items) {
+            ItemDto dto = ItemMapper.mapToDTO(item, List.of(), summaries.get(item.getId()));
+            dto.setCommentsCount(0L);
+            dtos.add(dto);
+        }
+        attachRecentComments(dtos);
+        return dtos;
     }
 
-    private ItemDto prepareAndMakeItemDto(Item item, Map<Item, List<Booking>> bookingsByItem,
-                                          Map<Item, List<Comment>> commentsByItem, boolean initDate) {
-
-        List<Booking> itemBookings = bookingsByItem.getOrDefault(item, List.of());
-
-        List<Comment> itemComments = commentsByItem.getOrDefault(item, List.of());
-        List<CommentDTO> commentDTOs = itemComments.stream()
-                .map(CommentMapper::mapToDTO)
-                .toList();
+    /**
+     * Раскладывает по предметам последние отзывы, не больше recentCommentsLimit на каждый.
+     * Отзывы приходят одним запросом с ROW_NUMBER, отсортированными по item_id, поэтому они
+     * сопоставляются с отсортированным массивом id предметов одним проходом курсора, без карт с упакованными ключами.
+     * Общее число отзывов считается в БД только для предметов, у которых выборка заполнена до лимита.
+     */
+    private void attachRecentComments(List<ItemDto> dtos) {
+        int size = dtos.size();
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = dtos.get(i).getId();
+        }
+        long[] sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[Arrays.binarySearch(sortedIds, ids[i])] = i;
+        }
 
-        Booking latestBooking = null;
-        Booking nextBooking = null;
+        List<Comment> comments = commentRepository.findRecentForItems(
+                dtos.stream().map(ItemDto::getId).toList(), recentCommentsLimit);
+        List<Long> truncated = new ArrayList<>();
+        int rank = 0;
+        int cursor = 0;
+        while (cursor < comments.size()) {
+            long itemId = comments.get(cursor).getItem().getId();
+            int runEnd = cursor + 1;
+            while (runEnd < comments.size() && comments.get(runEnd).getItem().getId() == itemId) {
+                runEnd++;
+            }
+            while (rank < size && sortedIds[rank] < itemId) {
+                rank++;
+            }
+            if (rank < size && sortedIds[rank] == itemId) {
+                List<CommentDTO> itemComments = new ArrayList<>(runEnd - cursor);
+                for (int i = cursor; i < runEnd; i++) {
+                    itemComments.add(CommentMapper.mapToDTO(comments.get(i)));
+                }
+                ItemDto dto = dtos.get(positions[rank]);
+                dto.setComments(itemComments);
+                dto.setCommentsCount((long) itemComments.size());
+                if (itemComments.size() >= recentCommentsLimit) {
+                    truncated.add(itemId);
+                }
+            }
+            cursor = runEnd;
+        }
 
-        if (initDate && !itemBookings.isEmpty()) {
-            latestBooking = findLastBooking(itemBookings);
-            nextBooking = findNextBooking(itemBookings);
+        if (!truncated.isEmpty()) {
+            for (CommentRepository.CommentCount count : commentRepository.countForItems(truncated)) {
+                dtos.get(positions[Arrays.binarySearch(sortedIds, count.getItemId())]).setCommentsCount(count.getTotal());
+            }
         }
-        return ItemMapper.mapToDTO(item, commentDTOs, nextBooking, latestBooking);
     }
 
-    private Booking findNextBooking(List<Booking> bookings) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookings.stream()
-                .filter(booking -> booking.getStartDate().isAfter(now))
-                .min(Comparator.comparing(Booking::getStartDate))
-                .orElse(null);
-    }
+    private Item prepareAndMakeItemPOJO(long userId, ItemDto itemDto) {
+        if (!userCache.exists(userId)) {
+            throw new NotFoundException("Пользователь с id '" + userId + "' не найден");
+        }
 
-    private Booking findLastBooking(List<Booking> bookings) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookings.stream()
-                .filter(booking -> booking.getEndDate().isBefore(now))
-                .max(Comparator.comparing(Booking::getEndDate))
-                .orElse(null);
+        return ItemMapper.mapToItem(userRepository.getReferenceById(userId), itemDto);
     }
 }
\ No newline at end of file
@@ -13,5 +13,6 @@ public class ItemRequestDto {
     private Long id;
     private String description;
     private List<ItemResponse> items;
+    private List<ItemResponse> suggestions;
     private LocalDateTime created;
 }
@@ -2,14 +2,12 @@ package ru.practicum.shareit.request.mapper;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemResponse;
 import ru.practicum.shareit.request.model.ItemRequest;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -25,17 +23,18 @@ public final class RequestMapper {
                 .build();
     }
 
-    public static ItemRequest mapToItemRequest(ItemRequestDto dto) {
-        Set<Long> itemIds = new HashSet<>();
-        if (dto.getItems() != null && !dto.getItems().isEmpty()) {
-            itemIds = dto.getItems().stream()
-                    .map(ItemResponse::getItemId)
-                    .collect(Collectors.toSet());
-        }
+    public static ItemResponse mapToItemResponse(Item item) {
+        return ItemResponse.builder()
+                .itemId(item.getId())
+                .userId(item.getOwner().getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .build();
+    }
 
+    public static ItemRequest mapToItemRequest(ItemRequestDto dto) {
         return ItemRequest.builder()
                 .description(dto.getDescription())
-                .items(itemIds)
                 .build();
     }
 }
@@ -2,12 +2,13 @@ package ru.practicum.shareit.request.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.SQLRestriction;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
-import java.util.Set;
 
 @Entity
+@SQLRestriction("hidden = false")
 @Table(name = "requests")
 @AllArgsConstructor
 @NoArgsConstructor
@@ -29,12 +30,15 @@ public class ItemRequest {
     @ToString.Exclude
     private User user;
 
-    @ElementCollection
-    @CollectionTable(name = "requests_items", joinColumns = @JoinColumn(name = "request_id"))
-    @Column(name = "item_id")
-    private Set<Long> items;
-
     @Builder.Default
     @Column(name = "creation_date")
     private LocalDateTime createdDate = LocalDateTime.now();
+
+    /**
+     * Запрос удаленного пользователя. Флаг ставится при мягком удалении автора,
+     * чтобы выборки запросов не проверяли users подзапросом.
+     */
+    @Builder.Default
+    @Column(name = "hidden")
+    private boolean hidden = false;
 }
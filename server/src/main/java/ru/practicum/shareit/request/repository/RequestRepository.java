@@ -1,8 +1,12 @@
 package ru.practicum.shareit.request.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RequestRepository extends JpaRepository<ItemRequest, Long> {
@@ -10,4 +14,18 @@ public interface RequestRepository extends JpaRepository<ItemRequest, Long> {
     List<ItemRequest> findByUserIdOrderByCreatedDateDesc(long userId);
 
     List<ItemRequest> findByUserIdNotOrderByCreatedDateDesc(long userId);
+
+    List<ItemRequest> findAllByOrderByCreatedDateDesc(Limit limit);
+
+    @Query("SELECT r FROM ItemRequest r WHERE NOT EXISTS (SELECT 1 FROM Item i WHERE i.requestId = r.id) " +
+            "ORDER BY r.createdDate DESC")
+    List<ItemRequest> findOpen(Limit limit);
+
+    @Query("SELECT r.id FROM ItemRequest r WHERE r.id IN ?1 " +
+            "AND NOT EXISTS (SELECT 1 FROM Item i WHERE i.requestId = r.id)")
+    List<Long> findOpenIds(Collection<Long> requestIds);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE ItemRequest r SET r.hidden = true WHERE r.user.id = ?1")
+    int hideByUserId(long userId);
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SuggestionRepository extends JpaRepository<RequestSuggestion, Long> {
+
+    @Query("SELECT s FROM RequestSuggestion s JOIN FETCH s.item i " +
+            "WHERE s.requestId IN :requestIds ORDER BY s.score DESC, s.id")
+    List<RequestSuggestion> findForRequests(Collection<Long> requestIds);
+
+    boolean existsByRequestIdAndItemId(long requestId, long itemId);
+}
@@ -1,14 +1,18 @@
 package ru.practicum.shareit.request.service;
 
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
 
+@Transactional(readOnly = true)
 public interface ItemRequestService {
+    @Transactional
     ItemRequestDto createRequest(ItemRequestDto dto, long userId);
 
     List<ItemRequestDto> getUserRequests(long userId);
 
+    @Transactional
     List<ItemRequestDto> getAllRequests(long userId);
 
     ItemRequestDto getRequestById(long requestId);
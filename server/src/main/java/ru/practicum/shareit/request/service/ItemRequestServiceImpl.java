@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
@@ -9,11 +10,16 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemResponse;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestSuggestion;
 import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.repository.SuggestionRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,62 +28,88 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final RequestMapper mapper;
+    private final UserCache userCache;
+    private final RequestFeed feed;
+    private final SuggestionRepository suggestionRepository;
+    private final RequestPercolator percolator;
 
     @Override
     public ItemRequestDto createRequest(ItemRequestDto dto, long userId) {
         ItemRequest request = RequestMapper.mapToItemRequest(dto);
-        request.setUser(userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id: " + userId + " не найден")));
-        List<ItemResponse> items = collectItemsToRequest(request);
+        if (!userCache.exists(userId)) {
+            throw new NotFoundException("Пользователь с id: " + userId + " не найден");
+        }
+        request.setUser(userRepository.getReferenceById(userId));
 
-        return mapper.mapToDto(repository.save(request), items);
+        ItemRequestDto created = mapper.mapToDto(repository.save(request), List.of());
+        feed.onRequestCreated(userId, created);
+        percolator.onRequestCreated(created.getId(), userId, created.getDescription());
+        return created;
     }
 
     @Override
     public List<ItemRequestDto> getUserRequests(long userId) {
-        return repository.findByUserIdOrderByCreatedDateDesc(userId).stream()
-                .map(itemRequest -> {
-                    List<ItemResponse> itemResponses = collectItemsToRequest(itemRequest);
-                    return mapper.mapToDto(itemRequest, itemResponses);
-                })
-                .toList();
+        return mapWithItems(repository.findByUserIdOrderByCreatedDateDesc(userId), true);
     }
 
+    /**
+     * Лента общая для всех пользователей и отдается из памяти, см. {@link RequestFeed}.
+     * Транзакция не read-only, поэтому лента загружается с основной БД: снимок отстающей реплики
+     * дальше только дополнялся бы событиями и так и не получил бы пропущенных запросов.
+     */
     @Override
     public List<ItemRequestDto> getAllRequests(long userId) {
-        return repository.findByUserIdNotOrderByCreatedDateDesc(userId).stream()
-                .map(itemRequest -> {
-                    List<ItemResponse> itemResponses = collectItemsToRequest(itemRequest);
-                    return mapper.mapToDto(itemRequest, itemResponses);
-                })
-                .toList();
+        return feed.forViewer(userId, this::loadFeed);
     }
 
     @Override
     public ItemRequestDto getRequestById(long requestId) {
         ItemRequest request = repository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Предмет с id: " + requestId + " не найден"));
-        List<ItemResponse> items = collectItemsToRequest(request);
-        return mapper.mapToDto(request, items);
+        return mapWithItems(List.of(request), true).getFirst();
     }
 
-    private List<ItemResponse> collectItemsToRequest(ItemRequest itemRequest) {
-        List<ItemResponse> items = new ArrayList<>();
-        if (itemRequest.getItems() != null && !itemRequest.getItems().isEmpty()) {
-            items = itemRequest.getItems().stream()
-                    .map(id -> {
-                        Item item = itemRepository.findById(id)
-                                .orElseThrow(() -> new NotFoundException("Предмет с id: " + id + " не найден"));
-                        return ItemResponse.builder()
-                                .itemId(item.getId())
-                                .userId(item.getOwner().getId())
-                                .name(item.getName())
-                                .description(item.getDescription())
-                                .build();
-                    })
-                    .toList();
+    /**
+     * Ответы на все запросы страницы загружаются одним запросом по индексу items.request_id.
+     * Предложения (см. {@link RequestPercolator}) показываются только в просмотре самих запросов,
+     * отсортированными по оценке, в общую ленту они не попадают.
+     */
+    private List<ItemRequestDto> mapWithItems(List<ItemRequest> requests, boolean withSuggestions) {
+        if (requests.isEmpty()) {
+            return List.of();
         }
-        return items;
+        List<Long> requestIds = requests.stream()
+                .map(ItemRequest::getId)
+                .toList();
+        Map<Long, List<ItemResponse>> itemsByRequest = itemRepository.findByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(Item::getRequestId,
+                        Collectors.mapping(RequestMapper::mapToItemResponse, Collectors.toList())));
+        Map<Long, List<ItemResponse>> suggestionsByRequest = withSuggestions
+                ? suggestionRepository.findForRequests(requestIds).stream()
+                .collect(Collectors.groupingBy(RequestSuggestion::getRequestId,
+                        Collectors.mapping(suggestion -> RequestMapper.mapToItemResponse(suggestion.getItem()),
+                                Collectors.toList())))
+                : Map.of();
+
+        return requests.stream()
+                .map(request -> {
+                    ItemRequestDto dto = mapper.mapToDto(request,
+                            itemsByRequest.getOrDefault(request.getId(), List.of()));
+                    if (withSuggestions) {
+                        dto.setSuggestions(suggestionsByRequest.getOrDefault(request.getId(), List.of()));
+                    }
+                    return dto;
+                })
+                .toList();
     }
-}
 
+    private List<RequestFeed.Entry> loadFeed(int size) {
+        List<ItemRequest> requests = repository.findAllByOrderByCreatedDateDesc(Limit.of(size));
+        List<ItemRequestDto> dtos = mapWithItems(requests, false);
+        List<RequestFeed.Entry> entries = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            entries.add(new RequestFeed.Entry(requests.get(i).getUser().getId(), dtos.get(i)));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.request.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.TransactionHooks;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Общая лента последних запросов вместе с ответами, не больше max-size запросов, новые первыми.
+ * Лента загружается из БД при первом чтении, а дальше дополняется после коммита создания запроса
+ * и ответа на него. Редкие изменения (удаление предметов и пользователей) сбрасывают ленту целиком.
+ * Чтение берет неизменяемый снимок без блокировок и только отбрасывает запросы самого зрителя.
+ * Опубликованные ItemRequestDto не изменяются: при изменении запись заменяется новой.
+ * Лента каждого узла дополняется только его собственными изменениями, поэтому старше refresh-millis
+ * она перечитывается из БД; пока идет перечитывание, остальные читатели получают прежний снимок.
+ */
+@Component
+public class RequestFeed {
+    private final int maxSize;
+    private final long refreshMillis;
+    private final Object lock = new Object();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private long generation;
+    private volatile List<Entry> entries;
+    private volatile long loadedAt;
+
+    public RequestFeed(@Value("${shareit.request-feed.max-size:1000}") int maxSize,
+                       @Value("${shareit.request-feed.refresh-millis:30000}") long refreshMillis) {
+        this.maxSize = maxSize;
+        this.refreshMillis = refreshMillis;
+    }
+
+    /**
+     * Запросы других пользователей из ленты. Если ленты еще нет, она загружается через loader,
+     * которому передается размер ленты. Загрузка не публикуется, если за время чтения из БД
+     * лента изменилась или была сброшена: следующий вызов загрузит ее заново.
+     */
+    public List<ItemRequestDto> forViewer(long viewerId, IntFunction<List<Entry>> loader) {
+        List<Entry> current = entries;
+        if (current == null) {
+            current = load(loader);
+        } else if (System.currentTimeMillis() - loadedAt >= refreshMillis && refreshing.compareAndSet(false, true)) {
+            try {
+                current = load(loader);
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        List<ItemRequestDto> result = new ArrayList<>(current.size());
+        for (Entry entry : current) {
+            if (entry.getUserId() != viewerId) {
+                result.add(entry.getRequest());
+            }
+        }
+        return result;
+    }
+
+    public void onRequestCreated(long userId, ItemRequestDto request) {
+        Entry created = new Entry(userId, request);
+        TransactionHooks.afterCommit(() -> update(current -> {
+            if (indexOf(current, request.getId()) >= 0) {
+                return current;
+            }
+            List<Entry> next = new ArrayList<>(Math.min(current.size() + 1, maxSize));
+            next.add(created);
+            next.addAll(current.subList(0, Math.min(current.size(), maxSize - 1)));
+            return next;
+        }));
+    }
+
+    /**
+     * Добавляет ответ на запрос или заменяет ответ с тем же itemId, если предмет изменился.
+     */
+    public void onAnswered(long requestId, ItemResponse response) {
+        TransactionHooks.afterCommit(() -> update(current -> {
+            int index = indexOf(current, requestId);
+            if (index < 0) {
+                return current;
+            }
+            Entry entry = current.get(index);
+            List<ItemResponse> items = new ArrayList<>(entry.getRequest().getItems());
+            items.removeIf(item -> item.getItemId().equals(response.getItemId()));
+            items.add(response);
+            List<Entry> next = new ArrayList<>(current);
+            next.set(index, new Entry(entry.getUserId(), ItemRequestDto.builder()
+                    .id(entry.getRequest().getId())
+                    .description(entry.getRequest().getDescription())
+                    .items(List.copyOf(items))
+                    .created(entry.getRequest().getCreated())
+                    .build()));
+            return next;
+        }));
+    }
+
+    /**
+     * Сбрасывает ленту целиком, например после удаления автора запроса или предмета-ответа.
+     */
+    public void invalidate() {
+        TransactionHooks.nowAndAfterCompletion(this::reset);
+    }
+
+    private List<Entry> load(IntFunction<List<Entry>> loader) {
+        long loadedGeneration;
+        synchronized (lock) {
+            loadedGeneration = generation;
+        }
+        long startedAt = System.currentTimeMillis();
+        List<Entry> loaded = List.copyOf(loader.apply(maxSize));
+        synchronized (lock) {
+            if (generation == loadedGeneration) {
+                entries = loaded;
+                loadedAt = startedAt;
+            }
+        }
+        return loaded;
+    }
+
+    private void update(UnaryOperator<List<Entry>> change) {
+        synchronized (lock) {
+            generation++;
+            if (entries != null) {
+                entries = List.copyOf(change.apply(entries));
+            }
+        }
+    }
+
+    private void reset() {
+        synchronized (lock) {
+            generation++;
+            entries = null;
+        }
+    }
+
+    private static int indexOf(List<Entry> entries, long requestId) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).getRequest().getId() == requestId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    @lombok.Value
+    public static class Entry {
+        long userId;
+        ItemRequestDto request;
+    }
+}
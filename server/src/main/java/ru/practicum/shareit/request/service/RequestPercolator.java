@@ -0,0 +1,339 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.common.TransactionHooks;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestSuggestion;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.repository.SuggestionRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обратный поиск: в памяти индексируются описания открытых запросов (без ответов), а каждый новый предмет
+ * без requestId сверяется с ними в пуле SuggestionExecutor. Оценка совпадения — доля слов запроса,
+ * встретившихся в названии или описании предмета. Найденные пары сохраняются как предложения запросу.
+ * В индексе не больше max-requests самых новых открытых запросов, вытесняются самые старые.
+ * Новый запрос, наоборот, сверяется с уже существующими предметами: по каждому слову описания
+ * поиском предметов берутся самые новые кандидаты, оценка та же.
+ * Индекс каждого узла видит сразу только свои изменения, поэтому раз в refresh-millis он перестраивается
+ * из БД и подхватывает запросы, созданные и закрытые на других узлах.
+ */
+@Slf4j
+@Component
+public class RequestPercolator {
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int MAX_QUERY_WORDS = 10;
+    private static final int CANDIDATES_PER_WORD = 100;
+
+    private final RequestRepository requestRepository;
+    private final ItemRepository itemRepository;
+    private final SuggestionRepository suggestionRepository;
+    private final SuggestionExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRequests;
+    private final double minScore;
+    private final int maxMatches;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final LinkedHashMap<Long, OpenRequest> openRequests = new LinkedHashMap<>();
+    private final List<Runnable> pending = new ArrayList<>();
+    private volatile boolean loaded;
+    private boolean refreshing;
+
+    public RequestPercolator(RequestRepository requestRepository,
+                             ItemRepository itemRepository,
+                             SuggestionRepository suggestionRepository,
+                             SuggestionExecutor executor,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${shareit.percolator.max-requests:10000}") int maxRequests,
+                             @Value("${shareit.percolator.min-score:0.3}") double minScore,
+                             @Value("${shareit.percolator.max-matches:50}") int maxMatches) {
+        this.requestRepository = requestRepository;
+        this.itemRepository = itemRepository;
+        this.suggestionRepository = suggestionRepository;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxRequests = maxRequests;
+        this.minScore = minScore;
+        this.maxMatches = maxMatches;
+    }
+
+    /**
+     * Слова текста в нижнем регистре без повторов, короче трех символов отбрасываются.
+     */
+    public static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            if (matcher.end() - matcher.start() >= MIN_WORD_LENGTH) {
+                words.add(matcher.group());
+            }
+        }
+        return words;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        executor.submit("warm-up", this::ensureLoaded);
+    }
+
+    public void onRequestCreated(long requestId, long userId, String description) {
+        Set<String> words = words(description);
+        TransactionHooks.afterCommit(() -> change(() -> add(requestId, userId, words)));
+        if (!words.isEmpty()) {
+            executor.submitAfterCommit("request", () -> suggestExisting(requestId, userId, words));
+        }
+    }
+
+    public void onRequestAnswered(long requestId) {
+        TransactionHooks.afterCommit(() -> change(() -> remove(requestId)));
+    }
+
+    public void onItemCreated(Item item) {
+        long itemId = item.getId();
+        long ownerId = item.getOwner().getId();
+        Set<String> words = words(item.getName());
+        words.addAll(words(item.getDescription()));
+        executor.submitAfterCommit("item", () -> percolate(itemId, ownerId, words));
+    }
+
+    private void suggestExisting(long requestId, long userId, Set<String> requestWords) {
+        List<Match> matches = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> seen = new HashSet<>();
+            for (String word : requestWords.stream().limit(MAX_QUERY_WORDS).toList()) {
+                for (Item item : itemRepository.searchNewest(word, Limit.of(CANDIDATES_PER_WORD))) {
+                    if (!seen.add(item.getId()) || item.getOwner().getId() == userId
+                            || Long.valueOf(requestId).equals(item.getRequestId())) {
+                        continue;
+                    }
+                    Set<String> itemWords = words(item.getName());
+                    itemWords.addAll(words(item.getDescription()));
+                    itemWords.retainAll(requestWords);
+                    double score = (double) itemWords.size() / requestWords.size();
+                    if (score >= minScore) {
+                        matches.add(new Match(requestId, item.getId(), score));
+                    }
+                }
+            }
+        });
+        save(matches);
+    }
+
+    private void percolate(long itemId, long ownerId, Set<String> itemWords) {
+        ensureLoaded();
+        Map<Long, Integer> hits = new HashMap<>();
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String word : itemWords) {
+                for (Long requestId : postings.getOrDefault(word, Set.of())) {
+                    hits.merge(requestId, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<Long, Integer> hit : hits.entrySet()) {
+                OpenRequest request = openRequests.get(hit.getKey());
+                double score = (double) hit.getValue() / request.getWords().length;
+                if (request.getUserId() != ownerId && score >= minScore) {
+                    matches.add(new Match(hit.getKey(), itemId, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        save(matches);
+    }
+
+    /**
+     * Сохраняются не больше max-matches лучших совпадений и только к запросам, которые еще открыты:
+     * существуют, видны (пользователь не удален) и не получили ответа. Открытость проверяется в той же
+     * транзакции, что и сохранение, остальные запросы убираются из индекса.
+     */
+    private void save(List<Match> matches) {
+        if (matches.isEmpty()) {
+            return;
+        }
+        matches.sort(Comparator.comparingDouble(Match::getScore).reversed());
+        List<Match> best = matches.subList(0, Math.min(matches.size(), maxMatches));
+        Set<Long> gone = new HashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Long> open = new HashSet<>(requestRepository.findOpenIds(
+                        best.stream().map(Match::getRequestId).distinct().toList()));
+                for (Match match : best) {
+                    if (!open.contains(match.getRequestId())) {
+                        gone.add(match.getRequestId());
+                    } else if (!suggestionRepository.existsByRequestIdAndItemId(match.getRequestId(),
+                            match.getItemId())) {
+                        suggestionRepository.save(RequestSuggestion.builder()
+                                .requestId(match.getRequestId())
+                                .item(itemRepository.getReferenceById(match.getItemId()))
+                                .score(match.getScore())
+                                .build());
+                    }
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Предложения уже сохранены или предмет удален: {}", best);
+        }
+        gone.forEach(requestId -> change(() -> remove(requestId)));
+    }
+
+    /**
+     * Перестраивает уже загруженный индекс, первую загрузку выполняет ensureLoaded.
+     */
+    @Scheduled(initialDelayString = "${shareit.percolator.refresh-millis:300000}",
+            fixedDelayString = "${shareit.percolator.refresh-millis:300000}")
+    public void refresh() {
+        if (loaded) {
+            load();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                load();
+            }
+        }
+    }
+
+    /**
+     * Открытые запросы читаются в транзакции без readOnly, то есть с основной БД, а не с реплики,
+     * которая могла отстать. Изменения, пришедшие во время чтения, запоминаются и повторяются поверх
+     * прочитанного: add и remove идемпотентны, поэтому уже учтенное в выборке изменение ничего не портит.
+     */
+    private synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            refreshing = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<ItemRequest> open;
+        try {
+            open = transactionTemplate.execute(status -> requestRepository.findOpen(Limit.of(maxRequests)));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                refreshing = false;
+                if (loaded) {
+                    pending.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            openRequests.clear();
+            postings.clear();
+            for (ItemRequest request : open.reversed()) {
+                add(request.getId(), request.getUser().getId(), words(request.getDescription()));
+            }
+            pending.forEach(Runnable::run);
+            pending.clear();
+            refreshing = false;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Индекс открытых запросов перестроен, запросов: {}", openRequests.size());
+    }
+
+    private void change(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+            }
+            if (!loaded || refreshing) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(long requestId, long userId, Set<String> words) {
+        if (words.isEmpty() || openRequests.containsKey(requestId)) {
+            return;
+        }
+        OpenRequest request = new OpenRequest(userId, words.toArray(String[]::new));
+        openRequests.put(requestId, request);
+        for (String word : request.getWords()) {
+            postings.computeIfAbsent(word, key -> new HashSet<>()).add(requestId);
+        }
+        Iterator<Map.Entry<Long, OpenRequest>> eldest = openRequests.entrySet().iterator();
+        while (openRequests.size() > maxRequests) {
+            Map.Entry<Long, OpenRequest> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+        }
+    }
+
+    private void remove(long requestId) {
+        OpenRequest request = openRequests.remove(requestId);
+        if (request != null) {
+            unindex(requestId, request);
+        }
+    }
+
+    private void unindex(long requestId, OpenRequest request) {
+        for (String word : request.getWords()) {
+            Set<Long> ids = postings.get(word);
+            if (ids != null && ids.remove(requestId) && ids.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+
+    @lombok.Value
+    private static class Match {
+        long requestId;
+        long itemId;
+        double score;
+    }
+
+    @lombok.Value
+    private static class OpenRequest {
+        long userId;
+        String[] words;
+    }
+}
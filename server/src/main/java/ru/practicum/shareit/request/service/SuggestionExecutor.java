@@ -0,0 +1,80 @@
+package ru.practicum.shareit.request.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import ru.practicum.shareit.common.TransactionHooks;
+
+/**
+ * Пул для подбора предложений к запросам вне пути записи. Очередь ограничена: если она заполнена,
+ * задача отбрасывается и учитывается в shareit.suggestions.dropped — предложения необязательны,
+ * а запись предмета или запроса не должна их ждать. Время от постановки задачи до ее завершения
+ * (вместе с ожиданием в очереди) пишется в shareit.suggestions.latency с тегом task,
+ * глубина очереди — в shareit.suggestions.queue.
+ */
+@Slf4j
+@Component
+public class SuggestionExecutor {
+    private final ThreadPoolExecutor executor;
+    private final Counter dropped;
+    private final MeterRegistry meterRegistry;
+
+    public SuggestionExecutor(MeterRegistry meterRegistry,
+                              @Value("${shareit.suggestions.threads:2}") int threads,
+                              @Value("${shareit.suggestions.queue-capacity:10000}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("suggestions-", 0).daemon(true).factory());
+        this.dropped = Counter.builder("shareit.suggestions.dropped")
+                .description("Задачи подбора предложений, отброшенные из-за переполненной очереди")
+                .register(meterRegistry);
+        Gauge.builder("shareit.suggestions.queue", executor, pool -> pool.getQueue().size())
+                .description("Задачи подбора предложений, ожидающие в очереди")
+                .register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ставит задачу в очередь после коммита текущей транзакции, чтобы она видела записанные данные.
+     */
+    public void submitAfterCommit(String name, Runnable task) {
+        TransactionHooks.afterCommit(() -> submit(name, task));
+    }
+
+    public void submit(String name, Runnable task) {
+        Timer latency = Timer.builder("shareit.suggestions.latency")
+                .description("Время подбора предложений вместе с ожиданием в очереди")
+                .tag("task", name)
+                .register(meterRegistry);
+        long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Ошибка подбора предложений к запросам", e);
+                } finally {
+                    latency.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            log.warn("Очередь подбора предложений заполнена, задача отброшена");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
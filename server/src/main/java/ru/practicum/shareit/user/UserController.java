@@ -1,8 +1,12 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.user.dto.UserDTO;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -13,11 +17,39 @@ import java.util.List;
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
 public class UserController {
+    private static final int EXPORT_BATCH_SIZE = 500;
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public List<UserDTO> allUsers() {
-        return userService.allUsers();
+    public List<UserDTO> allUsers(@RequestParam(defaultValue = "0") long afterId,
+                                  @RequestParam(defaultValue = "100") int size) {
+        return userService.allUsers(afterId, size);
+    }
+
+    /**
+     * Выгрузка всех пользователей в NDJSON. Пользователи читаются страницами по id
+     * и пишутся в ответ по мере чтения, поэтому в памяти держится не больше одной страницы.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = out -> {
+            long afterId = 0;
+            List<UserDTO> page;
+            do {
+                page = userService.allUsers(afterId, EXPORT_BATCH_SIZE);
+                for (UserDTO user : page) {
+                    out.write(objectMapper.writeValueAsBytes(user));
+                    out.write('\n');
+                    afterId = user.getId();
+                }
+                out.flush();
+            } while (page.size() == EXPORT_BATCH_SIZE);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{userId}")
@@ -3,6 +3,7 @@ package ru.practicum.shareit.user.mapper;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserSnapshot;
 import ru.practicum.shareit.user.dto.UserDTO;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -16,6 +17,14 @@ public final class UserMapper {
 
     }
 
+    public static UserDTO mapToDTO(UserSnapshot user) {
+        return UserDTO.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .name(user.getName())
+                .build();
+    }
+
     public static User mapToUser(UserDTO user) {
         return User.builder()
                 .name(user.getName())
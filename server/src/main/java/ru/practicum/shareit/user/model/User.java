@@ -2,7 +2,9 @@ package ru.practicum.shareit.user.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.SQLRestriction;
 
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -11,6 +13,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@SQLRestriction("deleted_at IS NULL")
 @Table(name = "users")
 public class User {
     @Id
@@ -20,4 +23,6 @@ public class User {
     private String name;
     @Column(name = "email")
     private String email;
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 }
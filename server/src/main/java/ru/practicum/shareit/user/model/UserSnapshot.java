@@ -0,0 +1,17 @@
+package ru.practicum.shareit.user.model;
+
+import lombok.Value;
+
+/**
+ * Неизменяемый снимок пользователя для кэша, не связан с контекстом персистентности.
+ */
+@Value
+public class UserSnapshot {
+    Long id;
+    String name;
+    String email;
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getName(), user.getEmail());
+    }
+}
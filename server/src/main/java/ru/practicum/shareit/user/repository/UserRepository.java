@@ -1,8 +1,21 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface UserRepository extends JpaRepository<User, Long> {
-    boolean existsByEmail(String email);
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE LOWER(u.email) = LOWER(?1)")
+    boolean existsByEmailIgnoreCase(String email);
+
+    List<User> findByIdGreaterThanOrderById(long id, Limit limit);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE User u SET u.deletedAt = ?2 WHERE u.id = ?1 AND u.deletedAt IS NULL")
+    int markDeleted(long userId, LocalDateTime deletedAt);
 }
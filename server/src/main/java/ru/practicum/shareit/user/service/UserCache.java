@@ -0,0 +1,67 @@
+package ru.practicum.shareit.user.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.TransactionHooks;
+import ru.practicum.shareit.user.model.UserSnapshot;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ограниченный LRU-кэш пользователей по id для проверки X-Sharer-User-Id.
+ * Отсутствующие пользователи не кэшируются, поэтому новый пользователь виден сразу,
+ * а изменение и удаление сбрасывают запись через {@link #evict(long)}.
+ * Загрузка в read-only транзакции может прийти с отстающей реплики уже после сброса, поэтому
+ * запись живет не дольше ttl-millis и затем перечитывается.
+ */
+@Component
+public class UserCache {
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<Long, Entry> users;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${shareit.user-cache.max-size:10000}") int maxSize,
+                     @Value("${shareit.user-cache.ttl-millis:60000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+        this.users = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public Optional<UserSnapshot> find(long userId) {
+        Entry cached = users.get(userId);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.getLoadedAt() < ttlMillis) {
+            return Optional.of(cached.getUser());
+        }
+        Optional<UserSnapshot> loaded = userRepository.findById(userId).map(UserSnapshot::of);
+        loaded.ifPresentOrElse(user -> users.put(userId, new Entry(user, now)), () -> users.remove(userId));
+        return loaded;
+    }
+
+    public boolean exists(long userId) {
+        return find(userId).isPresent();
+    }
+
+    /**
+     * Сбрасывает запись пользователя сразу и еще раз после завершения транзакции.
+     */
+    public void evict(long userId) {
+        TransactionHooks.nowAndAfterCompletion(() -> users.remove(userId));
+    }
+
+    @lombok.Value
+    private static class Entry {
+        UserSnapshot user;
+        long loadedAt;
+    }
+}
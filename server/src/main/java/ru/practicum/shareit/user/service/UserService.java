@@ -7,7 +7,7 @@ import java.util.List;
 
 @Transactional(readOnly = true)
 public interface UserService {
-    List<UserDTO> allUsers();
+    List<UserDTO> allUsers(long afterId, int size);
 
     UserDTO userById(Long userId);
 
@@ -2,59 +2,122 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.SameEmailException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.service.RequestFeed;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.dto.UserDTO;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceIml implements UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String EMAIL_CONSTRAINT = "users_email_lower_uq";
+
     private final UserRepository userRepository;
+    private final EmailBloomFilter emailFilter;
+    private final UserCache userCache;
+    private final ItemRepository itemRepository;
+    private final RequestFeed requestFeed;
+    private final BookingRepository bookingRepository;
+    private final BookingCalendar bookingCalendar;
+    private final ItemBookingSummaryService summaryService;
+    private final RequestRepository requestRepository;
 
     @Override
-    public List<UserDTO> allUsers() {
-        List<User> user = userRepository.findAll();
-        log.info("Пользователи: {}", user);
-        return user.stream().map(UserMapper::mapToDTO).toList();
+    public List<UserDTO> allUsers(long afterId, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Размер страницы должен быть положительным");
+        }
+        return userRepository.findByIdGreaterThanOrderById(afterId, Limit.of(Math.min(size, MAX_PAGE_SIZE))).stream()
+                .map(UserMapper::mapToDTO)
+                .toList();
     }
 
     @Override
     public UserDTO userById(Long userId) {
-        return UserMapper.mapToDTO(userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден")));
+        return userCache.find(userId)
+                .map(UserMapper::mapToDTO)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
     }
 
     @Override
     public UserDTO createUser(UserDTO user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
+        if (isEmailTaken(user.getEmail())) {
             throw new SameEmailException("Пользователь с этим email уже существует");
         }
 
-        User newUser = UserMapper.mapToUser(user);
-        return UserMapper.mapToDTO(userRepository.save(newUser));
+        User newUser = saveUnique(UserMapper.mapToUser(user), "Пользователь с этим email уже существует");
+        return UserMapper.mapToDTO(newUser);
     }
 
     @Override
     public UserDTO updateUser(Long userId, UserDTO user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new SameEmailException("Данный email уже занят");
-        }
         User oldUser = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        boolean emailChanged = user.getEmail() != null && !user.getEmail().equalsIgnoreCase(oldUser.getEmail());
+        if (emailChanged && isEmailTaken(user.getEmail())) {
+            throw new SameEmailException("Данный email уже занят");
+        }
         UserMapper.updateFields(oldUser, UserMapper.mapToUser(user));
-        return UserMapper.mapToDTO(userRepository.save(oldUser));
+        userCache.evict(userId);
+        return UserMapper.mapToDTO(saveUnique(oldUser, "Данный email уже занят"));
     }
 
     @Override
     public void deleteUser(Long userId) {
-        userRepository.deleteById(userId);
+        LocalDateTime now = LocalDateTime.now();
+        if (userRepository.markDeleted(userId, now) > 0) {
+            bookingCalendar.forgetUser(userId);
+            summaryService.removeForOwner(userId);
+            itemRepository.markDeletedByOwner(userId, now);
+            bookingRepository.hideByUserId(userId);
+            requestRepository.hideByUserId(userId);
+            summaryService.refreshForBooker(userId);
+        }
+        userCache.evict(userId);
+        requestFeed.invalidate();
+    }
+
+    /**
+     * В БД идем только если фильтр не исключил email. Гарантию уникальности дает индекс по lower(email):
+     * пропущенный конфликт всплывает при flush и превращается в ту же ошибку.
+     */
+    private boolean isEmailTaken(String email) {
+        return emailFilter.mightContain(email) && userRepository.existsByEmailIgnoreCase(email);
+    }
+
+    /**
+     * В SameEmailException превращается только нарушение индекса по email, остальные нарушения
+     * ограничений пробрасываются как есть.
+     */
+    private User saveUnique(User user, String conflictMessage) {
+        emailFilter.put(user.getEmail());
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            if (cause.contains(EMAIL_CONSTRAINT)) {
+                throw new SameEmailException(conflictMessage);
+            }
+            throw e;
+        }
     }
 
 }
@@ -0,0 +1,24 @@
+-- Сводка последней и следующей брони по предмету для уже заполненной базы.
+-- schema.sql пересоздает таблицы при старте, поэтому база, которую сохраняют между выкладками,
+-- запускается с spring.sql.init.mode=never, а скрипты этого каталога применяются через psql по порядку номеров.
+CREATE TABLE IF NOT EXISTS item_booking_summary (
+    item_id BIGINT PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE NOT NULL,
+    last_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+    last_booker_id BIGINT,
+    last_start_date TIMESTAMP WITHOUT TIME ZONE,
+    last_end_date TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+    next_booker_id BIGINT,
+    next_start_date TIMESTAMP WITHOUT TIME ZONE,
+    next_end_date TIMESTAMP WITHOUT TIME ZONE,
+    valid_until TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS item_booking_summary_valid_until_idx ON item_booking_summary (valid_until);
+
+-- Пустые сводки с истекшим valid_until: первый же проход rollForward рассчитает их порциями по batch-size.
+INSERT INTO item_booking_summary (item_id, valid_until)
+SELECT i.id, TIMESTAMP '1970-01-01 00:00:00'
+FROM items i
+WHERE EXISTS (SELECT 1 FROM bookings b WHERE b.item_id = i.id)
+ON CONFLICT (item_id) DO NOTHING;
@@ -0,0 +1,18 @@
+-- Фаза брони (FUTURE/CURRENT/PAST) для уже заполненной базы.
+-- schema.sql пересоздает таблицы при старте, этот скрипт нужен только для уже заполненной базы.
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase VARCHAR(15);
+
+-- Те же правила, что в BookingPhase.of; дальше фазы переводит BookingPhaseSweeper.
+UPDATE bookings
+SET phase = CASE
+    WHEN now() < start_date THEN 'FUTURE'
+    WHEN now() < end_date THEN 'CURRENT'
+    ELSE 'PAST'
+END
+WHERE phase IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN phase SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_idx ON bookings (booker_id, phase, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_phase_start_idx ON bookings (phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_phase_end_idx ON bookings (phase, end_date);
@@ -0,0 +1,12 @@
+-- Перенос существующей базы на денормализованный owner_id в bookings.
+-- schema.sql пересоздает таблицы при старте, этот скрипт нужен только для уже заполненной базы.
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT REFERENCES users(id) ON DELETE CASCADE;
+
+UPDATE bookings b
+SET owner_id = (SELECT i.owner_id FROM items i WHERE i.id = b.item_id)
+WHERE b.owner_id IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS bookings_owner_start_idx ON bookings (owner_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_owner_phase_idx ON bookings (owner_id, phase, start_date DESC);
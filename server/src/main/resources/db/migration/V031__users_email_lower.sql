@@ -0,0 +1,6 @@
+-- Уникальность email без учета регистра для уже заполненной базы.
+-- schema.sql пересоздает таблицы при старте, этот скрипт нужен только для уже заполненной базы.
+-- Если индекс не строится, в базе есть email, различающиеся только регистром; найти их:
+--   SELECT LOWER(email), COUNT(*) FROM users GROUP BY LOWER(email) HAVING COUNT(*) > 1;
+-- Такие адреса нужно исправить вручную до применения скрипта.
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_lower_uq ON users (LOWER(email));
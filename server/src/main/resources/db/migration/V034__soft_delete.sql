@@ -0,0 +1,25 @@
+-- Перенос существующей базы на пометку об удалении пользователей и предметов.
+-- schema.sql пересоздает таблицы при старте, этот скрипт нужен только для уже заполненной базы.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP WITHOUT TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS users_deleted_at_idx ON users (deleted_at);
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id);
+CREATE INDEX IF NOT EXISTS items_deleted_at_idx ON items (deleted_at);
+
+-- Email удаленного пользователя освобождается сразу, а не после физической очистки.
+DROP INDEX IF EXISTS users_email_lower_uq;
+CREATE UNIQUE INDEX users_email_lower_uq ON users (LOWER(email)) WHERE deleted_at IS NULL;
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_email_key;
+
+-- Брони и запросы удаленных пользователей и предметов скрываются флагом вместо подзапросов к users и items.
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS hidden BOOLEAN DEFAULT FALSE NOT NULL;
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS hidden BOOLEAN DEFAULT FALSE NOT NULL;
+
+UPDATE bookings b SET hidden = true
+WHERE NOT b.hidden AND (
+    EXISTS (SELECT 1 FROM items i WHERE i.id = b.item_id AND i.deleted_at IS NOT NULL)
+    OR EXISTS (SELECT 1 FROM users u WHERE u.id IN (b.booker_id, b.owner_id) AND u.deleted_at IS NOT NULL));
+
+UPDATE requests r SET hidden = true
+WHERE NOT r.hidden AND EXISTS (SELECT 1 FROM users u WHERE u.id = r.user_id AND u.deleted_at IS NOT NULL);
@@ -0,0 +1,4 @@
+-- Индекс для последних отзывов предмета и постраничной выдачи остальных для уже заполненной базы.
+-- CONCURRENTLY не блокирует вставку отзывов на время построения и не выполняется внутри транзакции,
+-- поэтому скрипт применяется через psql в режиме autocommit.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS comments_item_id_idx ON comments (item_id, id DESC);
@@ -0,0 +1,5 @@
+-- Полнотекстовый индекс по отзывам для уже заполненной базы (только Postgres).
+-- CONCURRENTLY не блокирует вставку отзывов на время построения индекса.
+-- Вне транзакции: скрипт применяется через psql в режиме autocommit.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS comments_text_fts_idx ON comments
+    USING GIN (to_tsvector('simple', text)) WITH (fastupdate = on);
@@ -0,0 +1,11 @@
+-- Ответ на запрос хранится в items.request_id вместо таблицы requests_items.
+-- schema.sql пересоздает таблицы при старте, этот скрипт нужен только для уже заполненной базы.
+ALTER TABLE items ADD COLUMN IF NOT EXISTS request_id INT REFERENCES requests(request_id);
+
+-- Предмет, привязанный в requests_items к нескольким запросам, остается ответом на самый ранний из них.
+UPDATE items i SET request_id = (SELECT MIN(ri.request_id) FROM requests_items ri WHERE ri.item_id = i.id)
+WHERE i.request_id IS NULL AND EXISTS (SELECT 1 FROM requests_items ri WHERE ri.item_id = i.id);
+
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+
+DROP TABLE IF EXISTS requests_items;
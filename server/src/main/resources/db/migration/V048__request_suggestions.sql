@@ -0,0 +1,12 @@
+-- Предложения предметов к запросам, которые находит RequestPercolator.
+-- schema.sql пересоздает таблицы при старте, этот скрипт нужен только для уже заполненной базы.
+CREATE TABLE IF NOT EXISTS request_suggestions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+    request_id INT REFERENCES requests(request_id) NOT NULL,
+    item_id BIGINT REFERENCES items(id) NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT request_suggestions_request_item_uq UNIQUE (request_id, item_id)
+);
+
+CREATE INDEX IF NOT EXISTS request_suggestions_item_idx ON request_suggestions (item_id);
@@ -0,0 +1,3 @@
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_lower VARCHAR(255)
+    GENERATED ALWAYS AS (CASE WHEN deleted_at IS NULL THEN LOWER(email) END);
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_lower_uq ON users (email_lower);
@@ -0,0 +1,5 @@
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_lower_uq ON users (LOWER(email)) WHERE deleted_at IS NULL;
+-- fastupdate копит новые записи в списке ожидания и переносит их в индекс порциями,
+-- поэтому вставка отзыва не перестраивает постинги всех его слов.
+CREATE INDEX IF NOT EXISTS comments_text_fts_idx ON comments
+    USING GIN (to_tsvector('simple', text)) WITH (fastupdate = on);
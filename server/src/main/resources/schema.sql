@@ -1,6 +1,7 @@
+DROP TABLE IF EXISTS request_suggestions;
+DROP TABLE IF EXISTS item_booking_summary;
 DROP TABLE IF EXISTS comments;
 DROP TABLE IF EXISTS bookings;
-DROP TABLE IF EXISTS requests_items;
 DROP TABLE IF EXISTS items;
 DROP TABLE IF EXISTS requests;
 DROP TABLE IF EXISTS users;
@@ -8,7 +9,18 @@ DROP TABLE IF EXISTS users;
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
     name VARCHAR(255) NOT NULL,
-    email VARCHAR(255) UNIQUE NOT NULL
+    email VARCHAR(255) NOT NULL,
+    deleted_at TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS users_deleted_at_idx ON users (deleted_at);
+
+CREATE TABLE IF NOT EXISTS requests (
+    request_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+    user_id INT REFERENCES users(id) ON DELETE CASCADE NOT NULL,
+    description VARCHAR(511) NOT NULL,
+    creation_date TIMESTAMP WITHOUT TIME ZONE,
+    hidden BOOLEAN DEFAULT FALSE NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS items (
@@ -16,19 +28,51 @@ CREATE TABLE IF NOT EXISTS items (
     owner_id BIGINT REFERENCES users(id) ON DELETE CASCADE NOT NULL,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(1000) NOT NULL,
-    available BOOLEAN DEFAULT TRUE NOT NULL
+    available BOOLEAN DEFAULT TRUE NOT NULL,
+    request_id INT REFERENCES requests(request_id),
+    deleted_at TIMESTAMP WITHOUT TIME ZONE
 );
 
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id);
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id);
+CREATE INDEX IF NOT EXISTS items_deleted_at_idx ON items (deleted_at);
+
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
     item_id BIGINT REFERENCES items(id) ON DELETE CASCADE NOT NULL,
+    owner_id BIGINT REFERENCES users(id) ON DELETE CASCADE NOT NULL,
     booker_id BIGINT REFERENCES users(id) ON DELETE CASCADE NOT NULL,
     status VARCHAR(15) NOT NULL,
     start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    phase VARCHAR(15) NOT NULL,
+    hidden BOOLEAN DEFAULT FALSE NOT NULL,
     CONSTRAINT check_date CHECK (start_date < end_date)
 );
 
+CREATE INDEX IF NOT EXISTS bookings_item_period_idx ON bookings (item_id, start_date, end_date);
+CREATE INDEX IF NOT EXISTS bookings_booker_item_end_idx ON bookings (booker_id, item_id, end_date);
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_idx ON bookings (booker_id, phase, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_owner_start_idx ON bookings (owner_id, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_owner_phase_idx ON bookings (owner_id, phase, start_date DESC);
+CREATE INDEX IF NOT EXISTS bookings_phase_start_idx ON bookings (phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_phase_end_idx ON bookings (phase, end_date);
+
+CREATE TABLE IF NOT EXISTS item_booking_summary (
+    item_id BIGINT PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE NOT NULL,
+    last_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+    last_booker_id BIGINT,
+    last_start_date TIMESTAMP WITHOUT TIME ZONE,
+    last_end_date TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+    next_booker_id BIGINT,
+    next_start_date TIMESTAMP WITHOUT TIME ZONE,
+    next_end_date TIMESTAMP WITHOUT TIME ZONE,
+    valid_until TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS item_booking_summary_valid_until_idx ON item_booking_summary (valid_until);
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
     item_id BIGINT REFERENCES items(id) ON DELETE CASCADE NOT NULL,
@@ -37,14 +81,15 @@ CREATE TABLE IF NOT EXISTS comments (
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL
 );
 
-CREATE TABLE IF NOT EXISTS requests (
-    request_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
-    user_id INT REFERENCES users(id) ON DELETE CASCADE NOT NULL,
-    description VARCHAR(511) NOT NULL,
-    creation_date TIMESTAMP WITHOUT TIME ZONE
-);
+CREATE INDEX IF NOT EXISTS comments_item_id_idx ON comments (item_id, id DESC);
 
-CREATE TABLE IF NOT EXISTS requests_items (
+CREATE TABLE IF NOT EXISTS request_suggestions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
     request_id INT REFERENCES requests(request_id) NOT NULL,
-    item_id INT REFERENCES items(id) NOT NULL
-);
\ No newline at end of file
+    item_id BIGINT REFERENCES items(id) NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT request_suggestions_request_item_uq UNIQUE (request_id, item_id)
+);
+
+CREATE INDEX IF NOT EXISTS request_suggestions_item_idx ON request_suggestions (item_id);
\ No newline at end of file
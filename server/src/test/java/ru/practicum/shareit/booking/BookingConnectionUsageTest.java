@@ -0,0 +1,114 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDTO;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Каждый вызов сервиса должен брать из пула одно соединение на всю свою работу.
+ * Соединения считаются только в потоке теста, фоновые задачи по расписанию на счет не влияют.
+ */
+@SpringBootTest(classes = {ShareItServer.class, BookingConnectionUsageTest.CountingDataSourceConfig.class},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingConnectionUsageTest {
+    private static final ThreadLocal<int[]> ACQUIRED = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private UserDTO owner;
+    private UserDTO booker;
+    private ItemDto item;
+
+    @BeforeEach
+    void before() {
+        owner = userService.createUser(UserDTO.builder().name("Shrek").email("pool-shrek@gmail.com").build());
+        booker = userService.createUser(UserDTO.builder().name("Donkey").email("pool-donkey@gmail.com").build());
+        item = itemService.createItem(owner.getId(), ItemDto.builder()
+                .name("Swamp boots")
+                .description("Boots")
+                .available(true)
+                .build());
+    }
+
+    @AfterEach
+    void after() {
+        jdbcTemplate.update("DELETE FROM item_booking_summary");
+        jdbcTemplate.update("DELETE FROM bookings");
+        jdbcTemplate.update("DELETE FROM items");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void testEveryServiceCallUsesOneConnection() {
+        BookingDto request = BookingDto.builder()
+                .itemId(item.getId())
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build();
+
+        ResponseBookingDto booked = countAcquired(() -> bookingService.bookItem(booker.getId(), request), 1);
+        countAcquired(() -> bookingService.changeBookStatus(owner.getId(), booked.getId(), true), 1);
+        countAcquired(() -> bookingService.getOwnerBookings(owner.getId(), "ALL"), 1);
+        countAcquired(() -> itemService.itemsOfUser(owner.getId()), 1);
+        countAcquired(() -> itemService.updateItem(owner.getId(), item.getId(),
+                ItemDto.builder().name("Dry boots").build()), 1);
+    }
+
+    private <T> T countAcquired(Supplier<T> call, int expected) {
+        ACQUIRED.get()[0] = 0;
+        T result = call.get();
+        assertThat(ACQUIRED.get()[0], is(expected));
+        return result;
+    }
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            ACQUIRED.get()[0]++;
+                            return super.getConnection();
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ResponseBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDTO;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * События отправляются после коммита из отдельного потока, поэтому тест не транзакционный
+ * и ждет, пока событие появится в ответе подписки.
+ */
+@SpringBootTest(classes = ShareItServer.class,
+        properties = "shareit.booking-events.heartbeat-millis=600000")
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingEventsIntegrationTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private final MockMvc mockMvc;
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private UserDTO owner;
+    private UserDTO booker;
+    private ItemDto item;
+
+    @BeforeEach
+    void before() {
+        owner = userService.createUser(UserDTO.builder().name("Shrek").email("events-shrek@gmail.com").build());
+        booker = userService.createUser(UserDTO.builder().name("Donkey").email("events-donkey@gmail.com").build());
+        item = itemService.createItem(owner.getId(), ItemDto.builder()
+                .name("Swamp boots")
+                .description("Boots")
+                .available(true)
+                .build());
+    }
+
+    @AfterEach
+    void after() {
+        jdbcTemplate.update("DELETE FROM item_booking_summary");
+        jdbcTemplate.update("DELETE FROM bookings");
+        jdbcTemplate.update("DELETE FROM items");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void testOwnerReceivesCreatedAndStatusChangedEvents() throws Exception {
+        MockHttpServletResponse ownerStream = subscribe(owner.getId());
+        MockHttpServletResponse bookerStream = subscribe(booker.getId());
+
+        ResponseBookingDto booked = bookingService.bookItem(booker.getId(), BookingDto.builder()
+                .itemId(item.getId())
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build());
+        bookingService.changeBookStatus(owner.getId(), booked.getId(), true);
+
+        String events = await(ownerStream, "event:status-changed");
+        assertThat(events, containsString("id:" + booked.getId()));
+        assertThat(events, containsString("event:booking-created"));
+        assertThat(events.indexOf("booking-created"), lessThan(events.indexOf("status-changed")));
+        assertThat(events, containsString("\"status\":\"APPROVED\""));
+        assertThat(bookerStream.getContentAsString(), emptyString());
+    }
+
+    @Test
+    void testUnknownOwnerCannotSubscribe() throws Exception {
+        mockMvc.perform(get("/bookings/owner/events")
+                        .header("X-Sharer-User-Id", 999_999))
+                .andExpect(status().isNotFound());
+    }
+
+    private MockHttpServletResponse subscribe(long ownerId) throws Exception {
+        return mockMvc.perform(get("/bookings/owner/events")
+                        .header("X-Sharer-User-Id", ownerId))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static String await(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            content = response.getContentAsString();
+        }
+        return content;
+    }
+}
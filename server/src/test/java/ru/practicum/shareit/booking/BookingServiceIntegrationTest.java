@@ -1,7 +1,11 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +14,13 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 import ru.practicum.shareit.ShareItServer;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.StatusBook;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingPhaseSweeper;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ConditionsNotMatchException;
@@ -24,6 +31,8 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -41,6 +50,9 @@ class BookingServiceIntegrationTest {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingService service;
+    private final BookingPhaseSweeper sweeper;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
 
 
     private User user;
@@ -136,6 +148,72 @@ class BookingServiceIntegrationTest {
         assertThat(result.getEnd(), is(bookingDto.getEnd()));
     }
 
+    @Test
+    void testBookItemOverlappingApprovedBooking() {
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(futureBooking.getStartDate().plusHours(1))
+                .end(futureBooking.getEndDate().plusHours(1))
+                .build();
+
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> service.bookItem(booker.getId(), bookingDto));
+
+        assertThat(exception.getMessage(), containsString("уже забронирован"));
+    }
+
+    @Test
+    void testBookItemOverlappingWaitingBooking() {
+        BookingDto bookingDto = BookingDto.builder()
+                .itemId(item.getId())
+                .start(waitingBooking.getStartDate())
+                .end(waitingBooking.getEndDate())
+                .build();
+
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> service.bookItem(booker.getId(), bookingDto));
+
+        assertThat(exception.getMessage(), containsString("уже забронирован"));
+    }
+
+    @Test
+    void testApproveOverlappingWaitingBookingOnlyOnce() {
+        Booking concurrent = repository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .status(StatusBook.WAITING)
+                .startDate(waitingBooking.getStartDate().plusHours(1))
+                .endDate(waitingBooking.getEndDate().plusHours(1))
+                .build());
+
+        ResponseBookingDto approved = service.changeBookStatus(user.getId(), waitingBooking.getId(), true);
+
+        assertThat(approved.getStatus(), is(StatusBook.APPROVED));
+        assertThrows(BadRequestException.class,
+                () -> service.changeBookStatus(user.getId(), concurrent.getId(), true));
+        assertThat(service.changeBookStatus(user.getId(), concurrent.getId(), false).getStatus(),
+                is(StatusBook.REJECTED));
+    }
+
+    @Test
+    void testGetAvailability() {
+        ItemAvailabilityDto free = service.getAvailability(item.getId(),
+                futureBooking.getEndDate(), futureBooking.getEndDate().plusDays(1));
+        ItemAvailabilityDto busy = service.getAvailability(item.getId(),
+                futureBooking.getStartDate().minusHours(1), futureBooking.getStartDate().plusHours(1));
+
+        assertThat(free.isAvailable(), is(true));
+        assertThat(free.getNextFreeStart(), is(futureBooking.getEndDate()));
+        assertThat(busy.isAvailable(), is(false));
+        assertThat(busy.getNextFreeStart(), is(futureBooking.getEndDate().truncatedTo(ChronoUnit.MICROS)));
+    }
+
+    @Test
+    void testGetAvailabilityItemNotFound() {
+        assertThrows(NotFoundException.class, () -> service.getAvailability(999L,
+                LocalDateTime.now(), LocalDateTime.now().plusDays(1)));
+    }
+
     @Test
     void testBookItemUnavailableItem() {
         BookingDto bookingDto = BookingDto.builder()
@@ -317,6 +395,40 @@ class BookingServiceIntegrationTest {
     }
 
 
+    @Test
+    void testNewBookingPhaseIsCalculatedOnSave() {
+        assertThat(booking.getPhase(), is(BookingPhase.PAST));
+        assertThat(currentBooking.getPhase(), is(BookingPhase.CURRENT));
+        assertThat(futureBooking.getPhase(), is(BookingPhase.FUTURE));
+    }
+
+    @Test
+    void testPhaseSweeperMovesStartedAndFinishedBookings() {
+        Booking started = repository.save(Booking.builder()
+                .item(item)
+                .booker(anotherUser)
+                .status(StatusBook.APPROVED)
+                .phase(BookingPhase.FUTURE)
+                .startDate(LocalDateTime.now().minusMinutes(1))
+                .endDate(LocalDateTime.now().plusMinutes(1))
+                .build());
+        Booking finished = repository.save(Booking.builder()
+                .item(item)
+                .booker(anotherUser)
+                .status(StatusBook.APPROVED)
+                .phase(BookingPhase.CURRENT)
+                .startDate(LocalDateTime.now().minusDays(3))
+                .endDate(LocalDateTime.now().minusDays(2))
+                .build());
+
+        sweeper.sweep();
+
+        assertThat(service.getUserBookings(anotherUser.getId(), "current").stream()
+                .map(ResponseBookingDto::getId).toList(), contains(started.getId()));
+        assertThat(service.getUserBookings(anotherUser.getId(), "past").stream()
+                .map(ResponseBookingDto::getId).toList(), contains(finished.getId()));
+    }
+
     @Test
     void testGetUserBookingsUserNotFound() {
         NotFoundException exception = assertThrows(NotFoundException.class,
@@ -341,6 +453,53 @@ class BookingServiceIntegrationTest {
         assertThat(result.size(), is(4));
     }
 
+    @Test
+    void testOwnerIdIsDenormalizedFromItem() {
+        List<ResponseBookingDto> result = service.getOwnerBookings(user.getId(), "all");
+
+        assertThat(repository.findById(booking.getId()).orElseThrow().getOwnerId(), is(user.getId()));
+        assertThat(result.stream().map(ResponseBookingDto::getStart).toList(),
+                contains(result.stream().map(ResponseBookingDto::getStart)
+                        .sorted(Comparator.reverseOrder()).toArray()));
+    }
+
+    @Test
+    void testBookingListsIssueConstantNumberOfStatements() {
+        Item secondItem = itemRepository.save(Item.builder()
+                .owner(user)
+                .name("Onion")
+                .description("Layers")
+                .available(true)
+                .build());
+        repository.save(Booking.builder()
+                .item(secondItem)
+                .booker(anotherUser)
+                .status(StatusBook.APPROVED)
+                .startDate(LocalDateTime.now().plusDays(5))
+                .endDate(LocalDateTime.now().plusDays(6))
+                .build());
+        service.getUserBookings(booker.getId(), "ALL");
+        service.getOwnerBookings(user.getId(), "ALL");
+        entityManager.flush();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ResponseBookingDto> ownerBookings = service.getOwnerBookings(user.getId(), "ALL");
+        long ownerStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        List<ResponseBookingDto> futureBookings = service.getUserBookings(booker.getId(), "FUTURE");
+        long userStatements = statistics.getPrepareStatementCount();
+
+        assertThat(ownerBookings, hasSize(5));
+        assertThat(ownerBookings.stream().map(dto -> dto.getBooker().getName()).distinct().toList(),
+                containsInAnyOrder("Donkey", "Fiona"));
+        assertThat(ownerStatements, is(1L));
+        assertThat(futureBookings, not(empty()));
+        assertThat(userStatements, is(1L));
+    }
+
     @Test
     void testGetOwnerBookingsCurrent() {
         List<ResponseBookingDto> result = service.getOwnerBookings(user.getId(), "current");
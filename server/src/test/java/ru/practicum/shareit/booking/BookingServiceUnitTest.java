@@ -6,11 +6,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.ResponseBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingPhase;
 import ru.practicum.shareit.booking.model.StatusBook;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.booking.service.BookingEventHub;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.exception.BadRequestException;
@@ -18,9 +22,11 @@ import ru.practicum.shareit.exception.ConditionsNotMatchException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -40,7 +46,13 @@ class BookingServiceUnitTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
     private ItemService itemService;
+    @Mock
+    private ItemBookingSummaryService summaryService;
+    @Mock
+    private BookingEventHub eventHub;
     private BookingService bookingService;
 
     private User user;
@@ -106,15 +118,17 @@ class BookingServiceUnitTest {
                 .build();
 
 
-        bookingService = new BookingServiceImpl(bookingRepository, userRepository, itemRepository);
+        bookingService = new BookingServiceImpl(bookingRepository, userRepository, itemRepository, summaryService,
+                new BookingCalendar(bookingRepository, transactionManager, 100),
+                new UserCache(userRepository, 100, 60_000), eventHub);
     }
 
     @Test
     void testChangeStatusApproveSuccess() {
         Mockito.when(bookingRepository.findById(4L))
                 .thenReturn(Optional.of(booking));
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
         Mockito.when(bookingRepository.save(Mockito.any(Booking.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -122,14 +136,15 @@ class BookingServiceUnitTest {
 
         assertThat(resp.getStatus(), is(StatusBook.APPROVED));
         Mockito.verify(bookingRepository).save(booking);
+        Mockito.verify(summaryService).refresh(1L);
     }
 
     @Test
     void testChangeStatusRejectSuccess() {
         Mockito.when(bookingRepository.findById(4L))
                 .thenReturn(Optional.of(booking));
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
         Mockito.when(bookingRepository.save(Mockito.any(Booking.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -153,8 +168,8 @@ class BookingServiceUnitTest {
     void testChangeStatusUserNotFound() {
         Mockito.when(bookingRepository.findById(4L))
                 .thenReturn(Optional.of(booking));
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(false);
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.empty());
 
         ConditionsNotMatchException exception = assertThrows(ConditionsNotMatchException.class,
                 () -> bookingService.changeBookStatus(3, 4, true));
@@ -166,8 +181,8 @@ class BookingServiceUnitTest {
     void testChangeStatusNotOwner() {
         Mockito.when(bookingRepository.findById(4L))
                 .thenReturn(Optional.of(booking));
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
 
         ConditionsNotMatchException exception = assertThrows(ConditionsNotMatchException.class,
                 () -> bookingService.changeBookStatus(999, 4, true));
@@ -195,6 +210,7 @@ class BookingServiceUnitTest {
         assertThat(result.getItem().getId(), is(item.getId()));
         assertThat(result.getBooker().getId(), is(booker.getId()));
         Mockito.verify(bookingRepository).save(Mockito.any(Booking.class));
+        Mockito.verify(summaryService).refresh(1L);
     }
 
     @Test
@@ -266,8 +282,8 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsUserNotFound() {
-        Mockito.when(userRepository.existsById(999L))
-                .thenReturn(false);
+        Mockito.when(userRepository.findById(999L))
+                .thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> bookingService.getUserBookings(999L, "all"));
@@ -277,8 +293,8 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetOwnerBookingsUserNotFound() {
-        Mockito.when(userRepository.existsById(999L))
-                .thenReturn(false);
+        Mockito.when(userRepository.findById(999L))
+                .thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> bookingService.getOwnerBookings(999L, "all"));
@@ -288,8 +304,8 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsInvalidState() {
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
 
         BadRequestException exception = assertThrows(BadRequestException.class,
                 () -> bookingService.getUserBookings(2L, "invalid_state"));
@@ -299,8 +315,8 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetOwnerBookingsInvalidState() {
-        Mockito.when(userRepository.existsById(3L))
-                .thenReturn(true);
+        Mockito.when(userRepository.findById(3L))
+                .thenReturn(Optional.of(User.builder().id(3L).build()));
 
         BadRequestException exception = assertThrows(BadRequestException.class,
                 () -> bookingService.getOwnerBookings(3L, "invalid_state"));
@@ -310,8 +326,8 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsAll() {
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
         Mockito.when(bookingRepository.findByBookerId(Mockito.anyLong(), Mockito.any()))
                 .thenReturn(List.of(booking, futureBooking));
 
@@ -325,9 +341,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsFuture() {
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByBookerIdAndStartDateAfter(Mockito.anyLong(), Mockito.any(), Mockito.any()))
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
+        Mockito.when(bookingRepository.findByBookerIdAndPhase(Mockito.anyLong(), Mockito.eq(BookingPhase.FUTURE), Mockito.any()))
                 .thenReturn(List.of(futureBooking));
 
         List<ResponseBookingDto> result = bookingService.getUserBookings(2L, "future");
@@ -339,9 +355,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetOwnerBookingsAll() {
-        Mockito.when(userRepository.existsById(3L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByItemOwnerId(3L))
+        Mockito.when(userRepository.findById(3L))
+                .thenReturn(Optional.of(User.builder().id(3L).build()));
+        Mockito.when(bookingRepository.findByOwnerId(Mockito.eq(3L), Mockito.any()))
                 .thenReturn(List.of(booking, futureBooking));
 
         List<ResponseBookingDto> result = bookingService.getOwnerBookings(3L, "all");
@@ -352,9 +368,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetOwnerBookingsFuture() {
-        Mockito.when(userRepository.existsById(3L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndStartDateAfter(Mockito.anyLong(), Mockito.any(), Mockito.any()))
+        Mockito.when(userRepository.findById(3L))
+                .thenReturn(Optional.of(User.builder().id(3L).build()));
+        Mockito.when(bookingRepository.findByOwnerIdAndPhase(Mockito.anyLong(), Mockito.eq(BookingPhase.FUTURE), Mockito.any()))
                 .thenReturn(List.of(futureBooking));
 
         List<ResponseBookingDto> result = bookingService.getOwnerBookings(3L, "future");
@@ -366,9 +382,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsWaiting() {
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByBookerIdAndStatusContaining(Mockito.anyLong(), Mockito.any(), Mockito.any()))
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
+        Mockito.when(bookingRepository.findByBookerIdAndStatus(Mockito.anyLong(), Mockito.eq(StatusBook.WAITING), Mockito.any()))
                 .thenReturn(List.of(booking));
 
         List<ResponseBookingDto> result = bookingService.getUserBookings(2L, "waiting");
@@ -380,9 +396,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsCurrent() {
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByBookerIdAndStartDateBeforeAndEndDateAfter(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any()))
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
+        Mockito.when(bookingRepository.findByBookerIdAndPhase(Mockito.anyLong(), Mockito.eq(BookingPhase.CURRENT), Mockito.any()))
                 .thenReturn(List.of(booking));
 
         List<ResponseBookingDto> result = bookingService.getUserBookings(2L, "current");
@@ -393,9 +409,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsPast() {
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByBookerIdAndEndDateBefore(Mockito.anyLong(), Mockito.any(), Mockito.any()))
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
+        Mockito.when(bookingRepository.findByBookerIdAndPhase(Mockito.anyLong(), Mockito.eq(BookingPhase.PAST), Mockito.any()))
                 .thenReturn(List.of(booking));
 
         List<ResponseBookingDto> result = bookingService.getUserBookings(2L, "past");
@@ -406,9 +422,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetOwnerBookingsWaiting() {
-        Mockito.when(userRepository.existsById(3L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndStatusContaining(Mockito.anyLong(), Mockito.any(), Mockito.any()))
+        Mockito.when(userRepository.findById(3L))
+                .thenReturn(Optional.of(User.builder().id(3L).build()));
+        Mockito.when(bookingRepository.findByOwnerIdAndStatus(Mockito.anyLong(), Mockito.eq(StatusBook.WAITING), Mockito.any()))
                 .thenReturn(List.of(booking));
 
         List<ResponseBookingDto> result = bookingService.getOwnerBookings(3L, "waiting");
@@ -429,9 +445,9 @@ class BookingServiceUnitTest {
                 .endDate(LocalDateTime.now().plusDays(4))
                 .build();
 
-        Mockito.when(userRepository.existsById(3L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByItemOwnerIdAndStatusContaining(Mockito.anyLong(), Mockito.any(), Mockito.any()))
+        Mockito.when(userRepository.findById(3L))
+                .thenReturn(Optional.of(User.builder().id(3L).build()));
+        Mockito.when(bookingRepository.findByOwnerIdAndStatus(Mockito.anyLong(), Mockito.eq(StatusBook.REJECTED), Mockito.any()))
                 .thenReturn(List.of(rejectedBooking));
 
         List<ResponseBookingDto> result = bookingService.getOwnerBookings(3L, "rejected");
@@ -449,7 +465,11 @@ class BookingServiceUnitTest {
         Mockito.when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
         Mockito.when(bookingRepository.save(Mockito.any(Booking.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+                .thenAnswer(invocation -> {
+                    Booking saved = invocation.getArgument(0);
+                    saved.setId(10L);
+                    return saved;
+                });
 
         bookingService.bookItem(2, bookingDto);
 
@@ -460,8 +480,8 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookingsEmptyList() {
-        Mockito.when(userRepository.existsById(2L))
-                .thenReturn(true);
+        Mockito.when(userRepository.findById(2L))
+                .thenReturn(Optional.of(User.builder().id(2L).build()));
         Mockito.when(bookingRepository.findByBookerId(Mockito.anyLong(), Mockito.any()))
                 .thenReturn(List.of());
 
@@ -473,9 +493,9 @@ class BookingServiceUnitTest {
 
     @Test
     void testGetOwnerBookingsEmptyList() {
-        Mockito.when(userRepository.existsById(3L))
-                .thenReturn(true);
-        Mockito.when(bookingRepository.findByItemOwnerId(3L))
+        Mockito.when(userRepository.findById(3L))
+                .thenReturn(Optional.of(User.builder().id(3L).build()));
+        Mockito.when(bookingRepository.findByOwnerId(Mockito.eq(3L), Mockito.any()))
                 .thenReturn(List.of());
 
         List<ResponseBookingDto> result = bookingService.getOwnerBookings(3L, "all");
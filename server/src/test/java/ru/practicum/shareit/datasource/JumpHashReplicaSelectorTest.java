@@ -0,0 +1,41 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class JumpHashReplicaSelectorTest {
+    private static final int USERS = 30_000;
+
+    private final ReplicaSelector selector = new JumpHashReplicaSelector();
+
+    @Test
+    void testUsersAreSpreadEvenlyAndDeterministically() {
+        int[] perReplica = new int[3];
+        for (long userId = 1; userId <= USERS; userId++) {
+            int replica = selector.replicaOf(userId, 3);
+            assertThat(selector.replicaOf(userId, 3), is(replica));
+            perReplica[replica]++;
+        }
+
+        for (int count : perReplica) {
+            assertThat(count, is(both(greaterThan(USERS / 3 * 9 / 10)).and(lessThan(USERS / 3 * 11 / 10))));
+        }
+    }
+
+    @Test
+    void testAddedReplicaTakesOnlyItsShare() {
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            int before = selector.replicaOf(userId, 3);
+            int after = selector.replicaOf(userId, 4);
+            if (before != after) {
+                assertThat(after, is(3));
+                moved++;
+            }
+        }
+
+        assertThat(moved, is(both(greaterThan(USERS / 4 * 9 / 10)).and(lessThan(USERS / 4 * 11 / 10))));
+    }
+}
@@ -0,0 +1,188 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDTO;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Реплику изображает вторая база H2 с той же схемой, но без репликации:
+ * то, что записано в основную БД, на реплике не видно, по этому и определяется, куда ушло чтение.
+ */
+@SpringBootTest(classes = ShareItServer.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "shareit.datasource.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+                "shareit.datasource.sticky-window-millis=60000",
+                "spring.datasource.hikari.maximum-pool-size=7"
+        })
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReplicaRoutingIntegrationTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    static {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "kirillUser", "12345")) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema-h2.sql"));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final ItemRepository itemRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final RequestUserFilter requestUserFilter;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final HikariDataSource primaryDataSource;
+    private final JdbcTemplate replica = new JdbcTemplate(
+            new DriverManagerDataSource(REPLICA_URL, "kirillUser", "12345"));
+
+    private UserDTO owner;
+    private UserDTO stranger;
+
+    @BeforeEach
+    void before() {
+        entityManagerFactory.getCache().evictAll();
+        owner = userService.createUser(UserDTO.builder().name("Shrek").email("replica-shrek@gmail.com").build());
+        stranger = userService.createUser(UserDTO.builder().name("Fiona").email("replica-fiona@gmail.com").build());
+    }
+
+    @AfterEach
+    void after() {
+        for (JdbcTemplate database : List.of(jdbcTemplate, replica)) {
+            database.update("DELETE FROM bookings");
+            database.update("DELETE FROM items");
+            database.update("DELETE FROM users");
+        }
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testPrimaryPoolIsBoundToHikariProperties() {
+        assertThat(primaryDataSource.getPoolName(), is("primary"));
+        assertThat(primaryDataSource.getMaximumPoolSize(), is(7));
+    }
+
+    @Test
+    void testWritesGoToPrimaryAndReadOnlyCallsToReplica() {
+        Integer onPrimary = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+
+        List<UserDTO> fromReplica = userService.allUsers(0, 10);
+
+        assertThat(onPrimary, is(2));
+        assertThat(fromReplica, empty());
+    }
+
+    @Test
+    void testUserReadsOwnWritesFromPrimary() throws Exception {
+        List<ItemDto> ownView = new ArrayList<>();
+        List<ItemDto> strangerView = new ArrayList<>();
+
+        asUser(owner.getId(), () -> {
+            itemService.createItem(owner.getId(), ItemDto.builder()
+                    .name("Swamp boots")
+                    .description("Boots")
+                    .available(true)
+                    .build());
+            ownView.addAll(itemService.itemsOfUser(owner.getId()));
+        });
+        asUser(stranger.getId(), () -> strangerView.addAll(itemService.itemsOfUser(owner.getId())));
+
+        assertThat(ownView.stream().map(ItemDto::getName).toList(), contains("Swamp boots"));
+        assertThat(strangerView, empty());
+    }
+
+    @Test
+    void testReadOnlyCallLoadsBookingCalendarFromPrimary() {
+        ItemDto item = itemService.createItem(owner.getId(), ItemDto.builder()
+                .name("Swamp boots")
+                .description("Boots")
+                .available(true)
+                .build());
+        copyToReplica(item);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = start.plusDays(1);
+        jdbcTemplate.update("INSERT INTO bookings (item_id, owner_id, booker_id, status, start_date, end_date, " +
+                "phase) VALUES (?, ?, ?, 'APPROVED', ?, ?, 'FUTURE')", item.getId(), owner.getId(), stranger.getId(),
+                start, end);
+
+        ItemAvailabilityDto availability = bookingService.getAvailability(item.getId(), start, end);
+
+        assertThat(availability.isAvailable(), is(false));
+        assertThat(availability.getNextFreeStart(), is(end));
+    }
+
+    @Test
+    void testReplicaReadDoesNotFillSecondLevelCache() {
+        ItemDto item = itemService.createItem(owner.getId(), ItemDto.builder()
+                .name("Swamp boots")
+                .description("Boots")
+                .available(true)
+                .build());
+        item.setAvailable(false);
+        copyToReplica(item);
+        entityManagerFactory.getCache().evictAll();
+
+        ItemDto fromReplica = itemService.itemById(item.getId());
+
+        assertThat(fromReplica.getAvailable(), is(false));
+        assertThat(entityManagerFactory.getCache().contains(Item.class, item.getId()), is(false));
+        Boolean onPrimary = new TransactionTemplate(transactionManager).execute(status ->
+                itemRepository.findById(item.getId()).orElseThrow().getAvailable());
+        assertThat(onPrimary, is(true));
+    }
+
+    /**
+     * Реплика, которая получила пользователей и предмет, но еще не получила брони.
+     */
+    private void copyToReplica(ItemDto item) {
+        for (UserDTO user : List.of(owner, stranger)) {
+            replica.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                    user.getId(), user.getName(), user.getEmail());
+        }
+        replica.update("INSERT INTO items (id, name, description, available, owner_id) VALUES (?, ?, ?, ?, ?)",
+                item.getId(), item.getName(), item.getDescription(), item.getAvailable(), owner.getId());
+    }
+
+    private void asUser(long userId, Runnable action) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Sharer-User-Id", userId);
+        requestUserFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> action.run());
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.user.dto.UserDTO;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Три базы H2 изображают реплики. В каждой лежит только пользователь с ее номером в имени,
+ * поэтому по результату read-only чтения видно, на какую реплику оно ушло.
+ */
+@SpringBootTest(classes = ShareItServer.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "shareit.datasource.replica.url=" + ReplicaSelectionIntegrationTest.REPLICA_URLS)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReplicaSelectionIntegrationTest {
+    private static final int REPLICAS = 3;
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-%d;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URLS = "jdbc:h2:mem:replica-0;DB_CLOSE_DELAY=-1, "
+            + "jdbc:h2:mem:replica-1;DB_CLOSE_DELAY=-1, jdbc:h2:mem:replica-2;DB_CLOSE_DELAY=-1";
+
+    static {
+        for (int i = 0; i < REPLICAS; i++) {
+            try (Connection connection = DriverManager.getConnection(REPLICA_URL.formatted(i), "kirillUser", "12345")) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema-h2.sql"));
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO users (name, email) VALUES (?, ?)")) {
+                    insert.setString(1, "replica-" + i);
+                    insert.setString(2, "replica-" + i + "@gmail.com");
+                    insert.executeUpdate();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private final UserService userService;
+    private final RequestUserFilter requestUserFilter;
+    private final ReplicaSelector selector;
+
+    @Test
+    void testEachUserReadsFromItsOwnReplica() throws Exception {
+        Set<String> used = new HashSet<>();
+        for (long userId = 1; userId <= 30; userId++) {
+            String expected = "replica-" + selector.replicaOf(userId, REPLICAS);
+
+            List<String> first = namesAs(userId);
+            List<String> second = namesAs(userId);
+
+            assertThat(first, contains(expected));
+            assertThat(second, is(first));
+            used.addAll(first);
+        }
+        assertThat(used, hasSize(REPLICAS));
+    }
+
+    @Test
+    void testReadWithoutUserGoesToSomeReplica() {
+        List<String> names = userService.allUsers(0, 10).stream().map(UserDTO::getName).toList();
+
+        assertThat(names, contains(startsWith("replica-")));
+    }
+
+    private List<String> namesAs(long userId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Sharer-User-Id", userId);
+        List<String> names = new ArrayList<>();
+        requestUserFilter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                userService.allUsers(0, 10).forEach(user -> names.add(user.getName())));
+        return names;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.repository.ItemBookingSummaryRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBookingSummaryServiceTest {
+    @Mock
+    private ItemBookingSummaryRepository summaryRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TransactionStatus transactionStatus;
+    private ItemBookingSummaryService summaryService;
+
+    @BeforeEach
+    void before() {
+        summaryService = new ItemBookingSummaryService(summaryRepository, bookingRepository, transactionManager);
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(transactionStatus);
+    }
+
+    @Test
+    void testRollForwardCommitsEachBatch() {
+        Mockito.when(summaryRepository.findByValidUntilBeforeOrderByValidUntil(Mockito.any(LocalDateTime.class),
+                        Mockito.any(Limit.class)))
+                .thenReturn(expired(500))
+                .thenReturn(expired(2));
+
+        summaryService.rollForward();
+
+        Mockito.verify(transactionManager, Mockito.times(2)).getTransaction(Mockito.any());
+        Mockito.verify(transactionManager, Mockito.times(2)).commit(transactionStatus);
+        Mockito.verify(summaryRepository, Mockito.times(502)).save(Mockito.any(ItemBookingSummary.class));
+    }
+
+    private static List<ItemBookingSummary> expired(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(itemId -> ItemBookingSummary.builder().itemId(itemId).build())
+                .toList();
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.ShareItServer;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -17,7 +18,9 @@ import ru.practicum.shareit.item.service.ItemService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -72,16 +75,41 @@ class ItemControllerTest {
     void allUsersShouldReturnAllItems() throws Exception {
         List<ItemDto> items = List.of(responseItemDto);
 
-        Mockito.when(itemService.allItems())
+        Mockito.when(itemService.allItems(0L, 500))
                 .thenReturn(items);
 
-        mockMvc.perform(get("/items/all"))
+        MvcResult result = mockMvc.perform(get("/items/all"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(itemId.intValue())))
                 .andExpect(jsonPath("$[0].name", is("Test Item")));
 
-        Mockito.verify(itemService).allItems();
+        Mockito.verify(itemService).allItems(0L, 500);
+    }
+
+    @Test
+    void allItemsShouldLeaveArrayOpenWhenLaterPageFails() throws Exception {
+        List<ItemDto> firstPage = LongStream.rangeClosed(1, 500)
+                .mapToObj(id -> ItemDto.builder().id(id).name("Item " + id).available(true).build())
+                .toList();
+        Mockito.when(itemService.allItems(0L, 500))
+                .thenReturn(firstPage);
+        Mockito.when(itemService.allItems(500L, 500))
+                .thenThrow(new IllegalStateException("Соединение с БД потеряно"));
+
+        MvcResult result = mockMvc.perform(get("/items/all"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(result.getAsyncResult(), instanceOf(IllegalStateException.class));
+        String content = result.getResponse().getContentAsString();
+        assertThat(content, startsWith("[{"));
+        assertThat(content, not(endsWith("]")));
     }
 
     @Test
@@ -209,6 +237,35 @@ class ItemControllerTest {
         Mockito.verify(itemService).addComment(Mockito.eq(userId), Mockito.eq(itemId), Mockito.any(CommentDTO.class));
     }
 
+    @Test
+    void itemCommentsShouldReturnPage() throws Exception {
+        Mockito.when(itemService.itemComments(itemId, 5L, 2))
+                .thenReturn(List.of(responseCommentDto));
+
+        mockMvc.perform(get("/items/{itemId}/comments", itemId)
+                        .param("beforeId", "5")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].text", is("Test comment")));
+
+        Mockito.verify(itemService).itemComments(itemId, 5L, 2);
+    }
+
+    @Test
+    void searchCommentsShouldPassOwnerFilter() throws Exception {
+        Mockito.when(itemService.searchComments("comment", userId, Long.MAX_VALUE, 20))
+                .thenReturn(List.of(responseCommentDto));
+
+        mockMvc.perform(get("/items/comments/search")
+                        .param("text", "comment")
+                        .param("ownerId", String.valueOf(userId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text", is("Test comment")));
+
+        Mockito.verify(itemService).searchComments("comment", userId, Long.MAX_VALUE, 20);
+    }
+
     @Test
     void saveItemWithMissingUserIdShouldReturnBadRequest() throws Exception {
         mockMvc.perform(post("/items")
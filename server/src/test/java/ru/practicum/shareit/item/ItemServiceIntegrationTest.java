@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,13 +16,17 @@ import ru.practicum.shareit.exception.ConditionsNotMatchException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -37,6 +42,9 @@ class ItemServiceIntegrationTest {
     private final UserRepository userRepository;
     private final ItemService itemService;
     private final BookingRepository bookingRepository;
+    private final ItemBookingSummaryService summaryService;
+    private final CommentRepository commentRepository;
+    private final EntityManager entityManager;
 
     private User user;
     private User user2;
@@ -107,6 +115,66 @@ class ItemServiceIntegrationTest {
         assertThat(resp.getLast().getName(), is(item2.getName()));
     }
 
+    @Test
+    void testGetUserItemsWithBookings() {
+        userRepository.save(user);
+        userRepository.save(user2);
+        itemRepository.save(item);
+
+        Booking past = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .startDate(LocalDateTime.now().minusDays(2))
+                .endDate(LocalDateTime.now().minusDays(1))
+                .status(StatusBook.APPROVED)
+                .build());
+        Booking future = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .startDate(LocalDateTime.now().plusDays(1))
+                .endDate(LocalDateTime.now().plusDays(2))
+                .status(StatusBook.APPROVED)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .startDate(LocalDateTime.now().plusHours(1))
+                .endDate(LocalDateTime.now().plusHours(2))
+                .status(StatusBook.REJECTED)
+                .build());
+        summaryService.refresh(item.getId());
+
+        List<ItemDto> resp = itemService.itemsOfUser(user.getId());
+
+        assertThat(resp.getFirst().getLastBooking().getId(), is(past.getId()));
+        assertThat(resp.getFirst().getNextBooking().getId(), is(future.getId()));
+        assertThat(resp.getFirst().getNextBooking().getBookerId(), is(user2.getId()));
+    }
+
+    @Test
+    void testBookingSummaryRollForward() {
+        userRepository.save(user);
+        userRepository.save(user2);
+        itemRepository.save(item);
+
+        Booking soon = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .startDate(LocalDateTime.now().plusNanos(1_000_000))
+                .endDate(LocalDateTime.now().plusNanos(2_000_000))
+                .status(StatusBook.APPROVED)
+                .build());
+        summaryService.refresh(item.getId());
+
+        await(soon.getEndDate());
+        summaryService.rollForward();
+
+        List<ItemDto> resp = itemService.itemsOfUser(user.getId());
+
+        assertThat(resp.getFirst().getLastBooking().getId(), is(soon.getId()));
+        assertThat(resp.getFirst().getNextBooking(), nullValue());
+    }
+
     @Test
     void testGetUserItemsEmpty() {
         userRepository.save(user);
@@ -128,6 +196,70 @@ class ItemServiceIntegrationTest {
         assertThat(resp.getFirst().getDescription(), is(item.getDescription()));
     }
 
+    @Test
+    void testItemSearchInPeriod() {
+        userRepository.save(user);
+        userRepository.save(user2);
+        itemRepository.save(item);
+        itemRepository.save(item2);
+        item2.setName("Shrexy carbonara");
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(3);
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .startDate(start.plusDays(1))
+                .endDate(end.plusDays(1))
+                .status(StatusBook.APPROVED)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(item2)
+                .booker(user2)
+                .startDate(start)
+                .endDate(end)
+                .status(StatusBook.REJECTED)
+                .build());
+
+        List<ItemDto> resp = itemService.searchAvailableItems("shrexy", start, end);
+
+        assertThat(resp, hasSize(1));
+        assertThat(resp.getFirst().getId(), is(item2.getId()));
+        assertThat(itemService.searchAvailableItems("shrexy", end.plusDays(2), end.plusDays(3)), hasSize(2));
+    }
+
+    @Test
+    void testItemSearchInPeriodSkipsWaitingOverlap() {
+        userRepository.save(user);
+        userRepository.save(user2);
+        itemRepository.save(item);
+        itemRepository.save(item2);
+        item2.setName("Shrexy carbonara");
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        LocalDateTime end = LocalDateTime.now().plusDays(3);
+        bookingRepository.save(Booking.builder()
+                .item(item2)
+                .booker(user2)
+                .startDate(start.minusHours(1))
+                .endDate(start.plusHours(1))
+                .status(StatusBook.WAITING)
+                .build());
+
+        List<ItemDto> resp = itemService.searchAvailableItems("shrexy", start, end);
+
+        assertThat(resp, hasSize(1));
+        assertThat(resp.getFirst().getId(), is(item.getId()));
+        assertThat(itemService.searchAvailableItems("shrexy", end, end.plusDays(1)), hasSize(2));
+    }
+
+    @Test
+    void testItemSearchInPeriodWrongDates() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertThrows(BadRequestException.class, () -> itemService.searchAvailableItems("shrexy", start, start));
+    }
+
     @Test
     void testItemSearchEmptyText() {
         userRepository.save(user);
@@ -220,6 +352,31 @@ class ItemServiceIntegrationTest {
         assertThat(updated.getAvailable(), is(true));
     }
 
+    @Test
+    void testUpdateItemIsFlushedAndKeepsOtherColumns() {
+        userRepository.save(user);
+        itemRepository.save(item);
+
+        itemService.updateItem(user.getId(), item.getId(), ItemDto.builder().available(false).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        Item stored = itemRepository.findById(item.getId()).orElseThrow();
+        assertThat(stored.getAvailable(), is(false));
+        assertThat(stored.getName(), is("Shrexy pants"));
+        assertThat(stored.getDescription(), is("No words are needed"));
+    }
+
+    @Test
+    void testUpdateDeletedItem() {
+        userRepository.save(user);
+        itemRepository.save(item);
+        itemService.deleteItem(user.getId(), item.getId());
+
+        assertThrows(ConditionsNotMatchException.class,
+                () -> itemService.updateItem(user.getId(), item.getId(), ItemDto.builder().name("Back").build()));
+    }
+
     @Test
     void testUpdateItemNotOwner() {
         userRepository.save(user);
@@ -283,6 +440,69 @@ class ItemServiceIntegrationTest {
         assertThat(createdComment.getCreated(), notNullValue());
     }
 
+    @Test
+    void testItemEmbedsRecentCommentsAndPagesTheRest() {
+        userRepository.save(user);
+        itemRepository.save(item);
+        itemRepository.save(item2);
+        List<Long> commentIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            commentIds.add(commentRepository.save(Comment.builder()
+                    .item(item)
+                    .authorName("Donkey")
+                    .text("Comment " + i)
+                    .build()).getId());
+        }
+        commentRepository.save(Comment.builder()
+                .item(item2)
+                .authorName("Donkey")
+                .text("Tasty")
+                .build());
+
+        ItemDto dto = itemService.itemById(item.getId());
+        List<ItemDto> all = itemService.allItems(0L, 100);
+
+        assertThat(dto.getComments(), hasSize(10));
+        assertThat(dto.getCommentsCount(), is(12L));
+        assertThat(dto.getComments().getFirst().getId(), is(commentIds.getLast()));
+        assertThat(all.stream().map(ItemDto::getCommentsCount).toList(), containsInAnyOrder(12L, 1L));
+
+        List<CommentDTO> rest = itemService.itemComments(item.getId(), dto.getComments().getLast().getId(), 5);
+        assertThat(rest.stream().map(CommentDTO::getId).toList(), contains(commentIds.get(1), commentIds.get(0)));
+    }
+
+    @Test
+    void testSearchCommentsByOwnerWithKeyset() {
+        userRepository.save(user);
+        userRepository.save(user2);
+        itemRepository.save(item);
+        item2.setOwner(user2);
+        itemRepository.save(item2);
+        Comment first = saveComment(item, "Great pants, very Comfy");
+        saveComment(item, "Too big for me");
+        Comment second = saveComment(item, "comfy and warm");
+        Comment foreign = saveComment(item2, "Comfy carbonara?");
+
+        List<CommentDTO> all = itemService.searchComments("comfy", null, Long.MAX_VALUE, 10);
+        List<CommentDTO> owned = itemService.searchComments("comfy", user.getId(), Long.MAX_VALUE, 1);
+        List<CommentDTO> nextPage = itemService.searchComments("comfy", user.getId(), owned.getLast().getId(), 1);
+
+        assertThat(all.stream().map(CommentDTO::getId).toList(),
+                contains(foreign.getId(), second.getId(), first.getId()));
+        assertThat(owned.stream().map(CommentDTO::getId).toList(), contains(second.getId()));
+        assertThat(nextPage.stream().map(CommentDTO::getId).toList(), contains(first.getId()));
+        assertThat(nextPage.getFirst().getItemId(), is(item.getId()));
+        assertThat(itemService.searchComments(" ", null, Long.MAX_VALUE, 10), empty());
+        assertThat(itemService.searchComments("warm, comfy", null, Long.MAX_VALUE, 10).stream()
+                .map(CommentDTO::getId)
+                .toList(), contains(second.getId()));
+    }
+
+    @Test
+    void testItemCommentsOfMissingItem() {
+        assertThrows(NotFoundException.class, () -> itemService.itemComments(999L, Long.MAX_VALUE, 10));
+    }
+
     @Test
     void testAddCommentWithoutBooking() {
         userRepository.save(user);
@@ -304,7 +524,7 @@ class ItemServiceIntegrationTest {
         itemRepository.save(item);
         itemRepository.save(item2);
 
-        List<ItemDto> allItems = itemService.allItems();
+        List<ItemDto> allItems = itemService.allItems(0L, 100);
 
         assertThat(allItems, hasSize(2));
         assertThat(allItems.stream().map(ItemDto::getName).toList(),
@@ -313,8 +533,22 @@ class ItemServiceIntegrationTest {
 
     @Test
     void testGetAllItemsEmpty() {
-        List<ItemDto> allItems = itemService.allItems();
+        List<ItemDto> allItems = itemService.allItems(0L, 100);
 
         assertThat(allItems, empty());
     }
+
+    private void await(LocalDateTime moment) {
+        while (!LocalDateTime.now().isAfter(moment)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private Comment saveComment(Item commentedItem, String text) {
+        return commentRepository.save(Comment.builder()
+                .item(commentedItem)
+                .authorName("Donkey")
+                .text(text)
+                .build());
+    }
 }
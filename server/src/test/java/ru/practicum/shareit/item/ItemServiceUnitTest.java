@@ -6,28 +6,38 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.StatusBook;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ConditionsNotMatchException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.CommentDTO;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.BookingSnapshot;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.service.ItemServiceIml;
-import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.service.RequestFeed;
+import ru.practicum.shareit.request.service.RequestPercolator;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -43,9 +53,15 @@ class ItemServiceUnitTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
     private CommentRepository commentRepository;
     @Mock
     private RequestRepository requestRepository;
+    @Mock
+    private ItemBookingSummaryService summaryService;
+    @Mock
+    private RequestPercolator percolator;
     private ItemService service;
 
     private User user;
@@ -106,7 +122,8 @@ class ItemServiceUnitTest {
 
 
         service = new ItemServiceIml(userRepository, itemRepository, commentRepository, bookingRepository,
-                requestRepository);
+                requestRepository, summaryService, new UserCache(userRepository, 100, 60_000),
+                new RequestFeed(100, 60_000), percolator, new BookingCalendar(bookingRepository, transactionManager, 100));
 
     }
 
@@ -128,6 +145,8 @@ class ItemServiceUnitTest {
 
         Mockito.when(userRepository.findById(1L))
                 .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.getReferenceById(1L))
+                .thenReturn(user);
         Mockito.when(itemRepository.save(Mockito.any(Item.class)))
                 .thenAnswer(invocation -> {
                     Item itemToSave = invocation.getArgument(0);
@@ -151,29 +170,45 @@ class ItemServiceUnitTest {
                 .requestId(1L)
                 .build();
 
-        ItemRequest request = ItemRequest.builder()
-                .id(1L)
-                .items(new HashSet<>())
-                .build();
-
         Mockito.when(userRepository.findById(1L))
                 .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.getReferenceById(1L))
+                .thenReturn(user);
         Mockito.when(itemRepository.save(Mockito.any(Item.class)))
                 .thenAnswer(invocation -> {
                     Item itemToSave = invocation.getArgument(0);
                     itemToSave.setId(3L);
                     return itemToSave;
                 });
-        Mockito.when(requestRepository.findById(1L))
-                .thenReturn(Optional.of(request));
-        Mockito.when(requestRepository.save(Mockito.any(ItemRequest.class)))
-                .thenReturn(request);
+        Mockito.when(requestRepository.existsById(1L))
+                .thenReturn(true);
 
         ItemDto result = service.createItem(1L, itemDto);
 
         assertThat(result.getName(), is("New Item"));
-        Mockito.verify(requestRepository).findById(1L);
-        Mockito.verify(requestRepository).save(request);
+        assertThat(result.getRequestId(), is(1L));
+        Mockito.verify(requestRepository).existsById(1L);
+        Mockito.verify(requestRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    void testCreateItemWithUnknownRequest() {
+        ItemDto itemDto = ItemDto.builder()
+                .name("New Item")
+                .description("New Description")
+                .available(true)
+                .requestId(99L)
+                .build();
+
+        Mockito.when(userRepository.findById(1L))
+                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.getReferenceById(1L))
+                .thenReturn(user);
+        Mockito.when(requestRepository.existsById(99L))
+                .thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> service.createItem(1L, itemDto));
+        Mockito.verify(itemRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
@@ -197,17 +232,24 @@ class ItemServiceUnitTest {
                 .description("Updated Description")
                 .build();
 
-        Mockito.when(itemRepository.findById(1L))
+        Mockito.when(itemRepository.findByIdAndOwnerId(1L, 1L))
                 .thenReturn(Optional.of(item));
-        Mockito.when(itemRepository.existsByIdAndOwnerId(1L, 1L))
-                .thenReturn(true);
-        Mockito.when(userRepository.findById(1L))
-                .thenReturn(Optional.of(user));
 
         ItemDto result = service.updateItem(1L, 1L, updateDto);
 
         assertThat(result.getName(), is("Updated Name"));
-        Mockito.verify(itemRepository).findById(1L);
+        assertThat(item.getOwner(), is(user));
+        Mockito.verify(itemRepository, Mockito.never()).findById(Mockito.anyLong());
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testUpdateItemNotOwner() {
+        Mockito.when(itemRepository.findByIdAndOwnerId(1L, 2L))
+                .thenReturn(Optional.empty());
+
+        assertThrows(ConditionsNotMatchException.class,
+                () -> service.updateItem(2L, 1L, ItemDto.builder().name("Stolen").build()));
     }
 
 
@@ -219,7 +261,10 @@ class ItemServiceUnitTest {
         service.deleteItem(1L, 1L);
 
         Mockito.verify(itemRepository, Mockito.times(1))
-                .deleteById(1L);
+                .markDeleted(Mockito.eq(1L), Mockito.any(LocalDateTime.class));
+        Mockito.verify(bookingRepository).hideByItemId(1L);
+        Mockito.verify(summaryService).remove(1L);
+        Mockito.verify(itemRepository, Mockito.never()).deleteById(Mockito.anyLong());
     }
 
     @Test
@@ -232,13 +277,19 @@ class ItemServiceUnitTest {
 
     @Test
     void testGetUserItems() {
-        Mockito.when(userRepository.existsById(1L))
-                .thenReturn(true);
         Mockito.when(itemRepository.findByOwnerId(1L))
                 .thenReturn(Arrays.asList(item, item2));
-        Mockito.when(bookingRepository.existsByItemId(Mockito.anyLong()))
-                .thenReturn(true);
-        Mockito.when(commentRepository.findByItemId(Mockito.anyLong()))
+        Mockito.when(summaryService.findForItems(List.of(3L, 2L)))
+                .thenReturn(Map.of(3L, ItemBookingSummary.builder()
+                        .itemId(3L)
+                        .lastBooking(BookingSnapshot.builder()
+                                .bookingId(finishedBooking.getId())
+                                .bookerId(user.getId())
+                                .startDate(finishedBooking.getStartDate())
+                                .endDate(finishedBooking.getEndDate())
+                                .build())
+                        .build()));
+        Mockito.when(commentRepository.findRecentForItems(List.of(3L, 2L), 10))
                 .thenReturn(List.of());
 
         List<ItemDto> result = service.itemsOfUser(1L);
@@ -246,6 +297,44 @@ class ItemServiceUnitTest {
         assertThat(result, hasSize(2));
         assertThat(result.get(0).getName(), is("Shrexy pants"));
         assertThat(result.get(1).getName(), is("carbonara"));
+        assertThat(result.get(0).getLastBooking().getId(), is(finishedBooking.getId()));
+        assertThat(result.get(0).getNextBooking(), nullValue());
+        assertThat(result.get(1).getLastBooking(), nullValue());
+    }
+
+    @Test
+    void testGetUserItemsCountsOnlyTruncatedComments() {
+        List<Comment> recent = new ArrayList<>();
+        recent.add(Comment.builder().id(11L).item(item2).authorName("Donkey").text("Only one").build());
+        for (long i = 10; i > 0; i--) {
+            recent.add(Comment.builder().id(i).item(item).authorName("Donkey").text("Comment " + i).build());
+        }
+
+        Mockito.when(itemRepository.findByOwnerId(1L))
+                .thenReturn(Arrays.asList(item, item2));
+        Mockito.when(summaryService.findForItems(List.of(3L, 2L)))
+                .thenReturn(Map.of());
+        Mockito.when(commentRepository.findRecentForItems(List.of(3L, 2L), 10))
+                .thenReturn(recent);
+        Mockito.when(commentRepository.countForItems(List.of(3L)))
+                .thenReturn(List.of(new CommentRepository.CommentCount() {
+                    @Override
+                    public Long getItemId() {
+                        return 3L;
+                    }
+
+                    @Override
+                    public Long getTotal() {
+                        return 25L;
+                    }
+                }));
+
+        List<ItemDto> result = service.itemsOfUser(1L);
+
+        assertThat(result.get(0).getComments(), hasSize(10));
+        assertThat(result.get(0).getCommentsCount(), is(25L));
+        assertThat(result.get(1).getComments(), hasSize(1));
+        assertThat(result.get(1).getCommentsCount(), is(1L));
     }
 
     @Test
@@ -275,36 +364,61 @@ class ItemServiceUnitTest {
 
     @Test
     void testGetAllItems() {
-        Mockito.when(itemRepository.findAll())
-                .thenReturn(Arrays.asList(item, item2));
-        Mockito.when(commentRepository.findByItemIn(Mockito.any(), Mockito.any()))
-                .thenReturn(List.of());
-        Mockito.when(bookingRepository.findApprovedForItems(Mockito.any(), Mockito.any()))
+        Mockito.when(itemRepository.findByIdGreaterThanOrderById(0L, Limit.of(500)))
+                .thenReturn(Arrays.asList(item2, item));
+        Mockito.when(commentRepository.findRecentForItems(List.of(2L, 3L), 10))
                 .thenReturn(List.of());
 
-        List<ItemDto> result = service.allItems();
+        List<ItemDto> result = service.allItems(0L, 500);
 
         assertThat(result, hasSize(2));
+        assertThat(result.get(0).getCommentsCount(), is(0L));
+    }
+
+    @Test
+    void testGetAllItemsMergesCommentsByItemId() {
+        Item uncommented = Item.builder().id(1L).owner(user).name("Bare").available(true).build();
+        List<Comment> recent = List.of(
+                Comment.builder().id(7L).item(item2).authorName("Donkey").text("Second").build(),
+                Comment.builder().id(5L).item(item2).authorName("Donkey").text("First").build(),
+                Comment.builder().id(6L).item(item).authorName("Donkey").text("Other").build());
+        Mockito.when(itemRepository.findByIdGreaterThanOrderById(0L, Limit.of(500)))
+                .thenReturn(List.of(uncommented, item2, item));
+        Mockito.when(commentRepository.findRecentForItems(List.of(1L, 2L, 3L), 10))
+                .thenReturn(recent);
+
+        List<ItemDto> result = service.allItems(0L, 500);
+
+        assertThat(result.get(0).getComments(), empty());
+        assertThat(result.get(1).getComments().stream().map(CommentDTO::getId).toList(), contains(7L, 5L));
+        assertThat(result.get(1).getCommentsCount(), is(2L));
+        assertThat(result.get(2).getComments().stream().map(CommentDTO::getId).toList(), contains(6L));
     }
 
     @Test
     void testGetAllItemsEmpty() {
-        Mockito.when(itemRepository.findAll())
+        Mockito.when(itemRepository.findByIdGreaterThanOrderById(0L, Limit.of(500)))
                 .thenReturn(List.of());
 
-        List<ItemDto> result = service.allItems();
+        List<ItemDto> result = service.allItems(0L, 500);
 
         assertThat(result, empty());
     }
 
+    @Test
+    void testGetAllItemsWithWrongPageSize() {
+        assertThrows(BadRequestException.class, () -> service.allItems(0L, 0));
+    }
+
     @Test
     void testPostComment() {
         Mockito.when(userRepository.findById(2L))
                 .thenReturn(Optional.of(user2));
-        Mockito.when(itemRepository.findById(1L))
-                .thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findByItemIdAndBookerId(1L, 2L))
-                .thenReturn(Arrays.asList(finishedBooking));
+        Mockito.when(itemRepository.getReferenceById(1L))
+                .thenReturn(item);
+        Mockito.when(bookingRepository.existsFinishedApproved(Mockito.eq(2L), Mockito.eq(1L),
+                        Mockito.any(LocalDateTime.class)))
+                .thenReturn(true);
         Mockito.when(commentRepository.save(Mockito.any(Comment.class)))
                 .thenAnswer(invocation -> {
                     Comment comment = invocation.getArgument(0);
@@ -318,6 +432,19 @@ class ItemServiceUnitTest {
 
         assertThat(resp.getText(), is(comment.getText()));
         assertThat(resp.getAuthorName(), is(user2.getName()));
+        Mockito.verify(itemRepository, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    void testPostCommentWithoutFinishedBooking() {
+        Mockito.when(bookingRepository.existsFinishedApproved(Mockito.eq(2L), Mockito.eq(1L),
+                        Mockito.any(LocalDateTime.class)))
+                .thenReturn(false);
+
+        CommentDTO comment = CommentDTO.builder().text("Never used it").build();
+
+        assertThrows(BadRequestException.class, () -> service.addComment(2L, 1L, comment));
+        Mockito.verify(commentRepository, Mockito.never()).save(Mockito.any(Comment.class));
     }
 
 }
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemResponse;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dto.UserDTO;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Кеш второго уровня проверяется между транзакциями, поэтому тест не транзакционный
+ * и каждый шаг выполняется в отдельной транзакции, как отдельный запрос.
+ */
+@SpringBootTest(classes = ShareItServer.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class SecondLevelCacheIntegrationTest {
+    private final ItemService itemService;
+    private final UserService userService;
+    private final ItemRequestService requestService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private UserDTO owner;
+
+    @BeforeEach
+    void before() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = userService.createUser(UserDTO.builder()
+                .name("Shrek")
+                .email("cached-shrek@gmail.com")
+                .build());
+    }
+
+    @AfterEach
+    void after() {
+        jdbcTemplate.update("DELETE FROM request_suggestions");
+        jdbcTemplate.update("DELETE FROM items");
+        jdbcTemplate.update("DELETE FROM requests");
+        jdbcTemplate.update("DELETE FROM users");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testItemIsReadFromCacheAndUpdatedCoherently() {
+        ItemDto item = createItem("Swamp boots", null);
+        itemService.itemById(item.getId());
+        statistics.clear();
+
+        ItemDto cached = itemService.itemById(item.getId());
+        itemService.updateItem(owner.getId(), item.getId(), ItemDto.builder().name("Dry boots").build());
+        ItemDto updated = itemService.itemById(item.getId());
+
+        assertThat(cached.getName(), is("Swamp boots"));
+        assertThat(statistics.getDomainDataRegionStatistics("items").getHitCount(), greaterThan(0L));
+        assertThat(updated.getName(), is("Dry boots"));
+        assertThat(updated.getDescription(), is("Boots"));
+    }
+
+    @Test
+    void testSoftDeletedItemIsNotServedFromCache() {
+        ItemDto item = createItem("Swamp boots", null);
+        itemService.itemById(item.getId());
+
+        itemService.deleteItem(owner.getId(), item.getId());
+
+        assertThrows(NotFoundException.class, () -> itemService.itemById(item.getId()));
+    }
+
+    @Test
+    void testUserUpdateIsVisibleThroughUserCache() {
+        userService.userById(owner.getId());
+
+        userService.updateUser(owner.getId(), UserDTO.builder().name("Fiona").build());
+
+        assertThat(userService.userById(owner.getId()).getName(), is("Fiona"));
+        assertThat(userRepository.findById(owner.getId()).orElseThrow().getName(), is("Fiona"));
+    }
+
+    @Test
+    void testUsersAreNotCachedInSecondLevel() {
+        assertThat(entityManagerFactory.getCache().contains(User.class, owner.getId()), is(false));
+        userRepository.findById(owner.getId());
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, owner.getId()), is(false));
+    }
+
+    @Test
+    void testRequestViewShowsNewAnswer() {
+        UserDTO requester = userService.createUser(UserDTO.builder()
+                .name("Donkey")
+                .email("cached-donkey@gmail.com")
+                .build());
+        ItemRequestDto request = transactionTemplate.execute(status -> requestService.createRequest(
+                ItemRequestDto.builder().description("Need boots").build(), requester.getId()));
+        createItem("Swamp boots", request.getId());
+        transactionTemplate.execute(status -> requestService.getRequestById(request.getId()));
+
+        createItem("Dry boots", request.getId());
+        ItemRequestDto reloaded = transactionTemplate.execute(status -> requestService.getRequestById(request.getId()));
+
+        assertThat(reloaded.getItems().stream().map(ItemResponse::getName).toList(),
+                containsInAnyOrder("Swamp boots", "Dry boots"));
+    }
+
+    private ItemDto createItem(String name, Long requestId) {
+        return transactionTemplate.execute(status -> itemService.createItem(owner.getId(), ItemDto.builder()
+                .name(name)
+                .description("Boots")
+                .available(true)
+                .requestId(requestId)
+                .build()));
+    }
+}
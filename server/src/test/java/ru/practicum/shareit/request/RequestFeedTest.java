@@ -0,0 +1,104 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemResponse;
+import ru.practicum.shareit.request.service.RequestFeed;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RequestFeedTest {
+    private RequestFeed feed;
+    private List<RequestFeed.Entry> stored;
+    private int loads;
+    private IntFunction<List<RequestFeed.Entry>> loader;
+
+    @BeforeEach
+    void before() {
+        feed = new RequestFeed(3, 60_000);
+        stored = new ArrayList<>(List.of(entry(1L, 2L, "Boots"), entry(2L, 1L, "Swamp")));
+        loads = 0;
+        loader = size -> {
+            loads++;
+            return stored.subList(0, Math.min(size, stored.size()));
+        };
+    }
+
+    @Test
+    void testFeedIsLoadedOnceAndFilteredPerViewer() {
+        List<ItemRequestDto> forFirst = feed.forViewer(1L, loader);
+        List<ItemRequestDto> forSecond = feed.forViewer(2L, loader);
+
+        assertThat(loads, is(1));
+        assertThat(forFirst.stream().map(ItemRequestDto::getId).toList(), contains(1L));
+        assertThat(forSecond.stream().map(ItemRequestDto::getId).toList(), contains(2L));
+    }
+
+    @Test
+    void testCreatedRequestsArePrependedAndFeedIsBounded() {
+        feed.forViewer(1L, loader);
+
+        feed.onRequestCreated(3L, entry(3L, 3L, "Cupcakes").getRequest());
+        feed.onRequestCreated(3L, entry(3L, 4L, "Onions").getRequest());
+
+        assertThat(feed.forViewer(5L, loader).stream().map(ItemRequestDto::getId).toList(), contains(4L, 3L, 2L));
+        assertThat(loads, is(1));
+    }
+
+    @Test
+    void testAnswerIsAddedAndReplacedByItemId() {
+        feed.forViewer(1L, loader);
+
+        feed.onAnswered(2L, response(10L, "Swamp boots"));
+        feed.onAnswered(2L, response(10L, "Dry boots"));
+
+        ItemRequestDto request = feed.forViewer(2L, loader).getFirst();
+        assertThat(request.getItems().stream().map(ItemResponse::getName).toList(), contains("Dry boots"));
+    }
+
+    @Test
+    void testInvalidateReloadsFeed() {
+        feed.forViewer(1L, loader);
+        stored.add(0, entry(5L, 5L, "Donkey"));
+
+        feed.invalidate();
+
+        assertThat(feed.forViewer(1L, loader).stream().map(ItemRequestDto::getId).toList(), contains(5L, 1L));
+        assertThat(loads, is(2));
+    }
+
+    @Test
+    void testFeedIsReloadedAfterRefreshInterval() {
+        feed = new RequestFeed(3, 0);
+        feed.forViewer(1L, loader);
+        stored.add(0, entry(5L, 5L, "Donkey"));
+
+        assertThat(feed.forViewer(1L, loader).stream().map(ItemRequestDto::getId).toList(), contains(5L, 1L));
+        assertThat(loads, is(2));
+    }
+
+    private static RequestFeed.Entry entry(long userId, long requestId, String description) {
+        return new RequestFeed.Entry(userId, ItemRequestDto.builder()
+                .id(requestId)
+                .description(description)
+                .items(List.of())
+                .created(LocalDateTime.now())
+                .build());
+    }
+
+    private static ItemResponse response(long itemId, String name) {
+        return ItemResponse.builder()
+                .itemId(itemId)
+                .userId(7L)
+                .name(name)
+                .description("Boots")
+                .build();
+    }
+}
@@ -8,10 +8,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import ru.practicum.shareit.ShareItServer;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemResponse;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.request.service.RequestFeed;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -30,6 +34,8 @@ class RequestServiceIntegrationTest {
     private final UserRepository userRepository;
     private final RequestRepository requestRepository;
     private final ItemRequestService service;
+    private final ItemService itemService;
+    private final RequestFeed feed;
 
     private User user;
     private User user2;
@@ -39,6 +45,7 @@ class RequestServiceIntegrationTest {
 
     @BeforeEach
     void before() {
+        feed.invalidate();
         user = User.builder()
                 .name("Shrek")
                 .email("shrekIsLove@gmail.com")
@@ -185,4 +192,28 @@ class RequestServiceIntegrationTest {
         assertThat(resp.getDescription(), is(request.getDescription()));
         assertThat(resp.getItems(), notNullValue());
     }
+
+    @Test
+    void testRequestViewsIncludeAnswers() {
+        userRepository.save(user);
+        userRepository.save(user2);
+        requestRepository.save(request);
+        requestRepository.save(request2);
+        itemService.createItem(user2.getId(), ItemDto.builder()
+                .name("Swamp boots")
+                .description("Boots")
+                .available(true)
+                .requestId(request.getId())
+                .build());
+
+        List<ItemRequestDto> feed = service.getAllRequests(user2.getId());
+        ItemRequestDto answered = service.getRequestById(request.getId());
+
+        assertThat(feed.size(), is(2));
+        assertThat(feed.stream().filter(dto -> dto.getId().equals(request.getId())).findFirst().orElseThrow()
+                .getItems().stream().map(ItemResponse::getName).toList(), contains("Swamp boots"));
+        assertThat(feed.stream().filter(dto -> dto.getId().equals(request2.getId())).findFirst().orElseThrow()
+                .getItems(), empty());
+        assertThat(answered.getItems().getFirst().getUserId(), is(user2.getId()));
+    }
 }
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemResponse;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.request.service.RequestFeed;
+import ru.practicum.shareit.request.service.RequestPercolator;
+import ru.practicum.shareit.user.dto.UserDTO;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Предложения подбираются асинхронно после коммита, поэтому тест не транзакционный.
+ * Пул из одного потока обрабатывает задачи по порядку: когда появилось предложение
+ * для последнего предмета, предыдущие уже обработаны.
+ */
+@SpringBootTest(classes = ShareItServer.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "shareit.suggestions.threads=1")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class RequestSuggestionIntegrationTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private final ItemRequestService requestService;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final RequestFeed feed;
+    private final RequestPercolator percolator;
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private UserDTO requester;
+    private UserDTO owner;
+
+    @BeforeEach
+    void before() {
+        requester = userService.createUser(UserDTO.builder().name("Donkey").email("suggest-donkey@gmail.com").build());
+        owner = userService.createUser(UserDTO.builder().name("Shrek").email("suggest-shrek@gmail.com").build());
+    }
+
+    @AfterEach
+    void after() {
+        jdbcTemplate.update("DELETE FROM request_suggestions");
+        jdbcTemplate.update("DELETE FROM items");
+        jdbcTemplate.update("DELETE FROM requests");
+        jdbcTemplate.update("DELETE FROM users");
+        entityManagerFactory.getCache().evictAll();
+        feed.invalidate();
+    }
+
+    @Test
+    void testNewItemIsSuggestedToMatchingOpenRequests() {
+        ItemRequestDto boots = requestService.createRequest(request("Need swamp boots for a walk"), requester.getId());
+        ItemRequestDto ladder = requestService.createRequest(request("Need a tall ladder"), requester.getId());
+        ItemRequestDto ownRequest = requestService.createRequest(request("Looking for swamp boots"), owner.getId());
+        createItem("Tall ladder", "Wooden", ladder.getId());
+
+        createItem("Ladder", "Long wooden ladder", null);
+        createItem("Swamp boots", "Rubber boots", null);
+
+        List<ItemResponse> suggested = await(() -> suggestions(requester.getId(), boots.getId()));
+        assertThat(suggested.stream().map(ItemResponse::getName).toList(), contains("Swamp boots"));
+        assertThat(suggestions(requester.getId(), ladder.getId()), empty());
+        assertThat(suggestions(owner.getId(), ownRequest.getId()), empty());
+        assertThat(requestService.getRequestById(boots.getId()).getSuggestions(), hasSize(1));
+    }
+
+    @Test
+    void testExistingItemsAreSuggestedToNewRequest() {
+        createItem("Wooden ladder", "Tall and sturdy", null);
+        createItem("Swamp boots", "Rubber boots", null);
+        ItemDto hidden = createItem("Old ladder", "Wooden", null);
+        itemService.deleteItem(owner.getId(), hidden.getId());
+        ItemRequestDto ownRequest = requestService.createRequest(request("Need a wooden ladder"), owner.getId());
+
+        ItemRequestDto ladder = requestService.createRequest(request("Need a wooden ladder"), requester.getId());
+
+        List<ItemResponse> suggested = await(() -> suggestions(requester.getId(), ladder.getId()));
+        assertThat(suggested.stream().map(ItemResponse::getName).toList(), contains("Wooden ladder"));
+        assertThat(suggestions(owner.getId(), ownRequest.getId()), empty());
+        assertThat(meterRegistry.get("shareit.suggestions.latency").tag("task", "request").timer().count(),
+                greaterThanOrEqualTo(2L));
+    }
+
+    @Test
+    void testDeletedItemIsNotSuggested() {
+        ItemRequestDto boots = requestService.createRequest(request("Need swamp boots"), requester.getId());
+        ItemDto item = createItem("Swamp boots", "Rubber boots", null);
+        assertThat(await(() -> suggestions(requester.getId(), boots.getId())), hasSize(1));
+
+        itemService.deleteItem(owner.getId(), item.getId());
+
+        assertThat(suggestions(requester.getId(), boots.getId()), empty());
+    }
+
+    @Test
+    void testRefreshPicksUpRequestsCreatedOnOtherNodes() {
+        ItemRequestDto boots = requestService.createRequest(request("Need swamp boots"), requester.getId());
+        createItem("Swamp boots", "Rubber boots", null);
+        await(() -> suggestions(requester.getId(), boots.getId()));
+        jdbcTemplate.update("INSERT INTO requests (user_id, description, creation_date) VALUES (?, ?, now())",
+                requester.getId(), "Need a wooden ladder");
+        long ladderId = jdbcTemplate.queryForObject("SELECT MAX(request_id) FROM requests", Long.class);
+
+        percolator.refresh();
+        createItem("Wooden ladder", "Tall and sturdy", null);
+
+        List<ItemResponse> suggested = await(() -> suggestions(requester.getId(), ladderId));
+        assertThat(suggested.stream().map(ItemResponse::getName).toList(), contains("Wooden ladder"));
+    }
+
+    private List<ItemResponse> suggestions(long userId, long requestId) {
+        return requestService.getUserRequests(userId).stream()
+                .filter(dto -> dto.getId() == requestId)
+                .findFirst()
+                .orElseThrow()
+                .getSuggestions();
+    }
+
+    private ItemDto createItem(String name, String description, Long requestId) {
+        return itemService.createItem(owner.getId(), ItemDto.builder()
+                .name(name)
+                .description(description)
+                .available(true)
+                .requestId(requestId)
+                .build());
+    }
+
+    private static ItemRequestDto request(String description) {
+        return ItemRequestDto.builder().description(description).build();
+    }
+
+    private static <T> List<T> await(Supplier<List<T>> call) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        List<T> result = call.get();
+        while (result.isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            result = call.get();
+        }
+        return result;
+    }
+}
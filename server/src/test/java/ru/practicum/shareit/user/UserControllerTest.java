@@ -10,6 +10,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.ShareItServer;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.service.ItemService;
@@ -67,7 +68,7 @@ class UserControllerTest {
     void allUsersShouldReturnAllUsers() throws Exception {
         List<UserDTO> users = List.of(responseUserDto);
 
-        Mockito.when(userService.allUsers())
+        Mockito.when(userService.allUsers(0L, 100))
                 .thenReturn(users);
 
         mockMvc.perform(get("/users"))
@@ -77,19 +78,54 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].name", is("John Doe")))
                 .andExpect(jsonPath("$[0].email", is("john.doe@example.com")));
 
-        Mockito.verify(userService).allUsers();
+        Mockito.verify(userService).allUsers(0L, 100);
+    }
+
+    @Test
+    void allUsersShouldPassKeysetCursor() throws Exception {
+        Mockito.when(userService.allUsers(10L, 5))
+                .thenReturn(List.of(responseUserDto));
+
+        mockMvc.perform(get("/users")
+                        .param("afterId", "10")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        Mockito.verify(userService).allUsers(10L, 5);
+    }
+
+    @Test
+    void exportUsersShouldStreamNdjson() throws Exception {
+        UserDTO secondUser = UserDTO.builder()
+                .id(2L)
+                .name("Jane Doe")
+                .email("jane.doe@example.com")
+                .build();
+        Mockito.when(userService.allUsers(0L, 500))
+                .thenReturn(List.of(responseUserDto, secondUser));
+
+        MvcResult result = mockMvc.perform(get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(responseUserDto) + "\n"
+                        + objectMapper.writeValueAsString(secondUser) + "\n"));
     }
 
     @Test
     void allUsersWhenNoUsersShouldReturnEmptyList() throws Exception {
-        Mockito.when(userService.allUsers())
+        Mockito.when(userService.allUsers(0L, 100))
                 .thenReturn(List.of());
 
         mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
 
-        Mockito.verify(userService).allUsers();
+        Mockito.verify(userService).allUsers(0L, 100);
     }
 
     @Test
@@ -1,19 +1,35 @@
 package ru.practicum.shareit.user;
 
 import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.StatusBook;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.deletion.DeletionPurger;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.SameEmailException;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.dto.UserDTO;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -28,6 +44,14 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class UserServiceIntegrationTest {
     private final UserService service;
     private final UserRepository repository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final RequestRepository requestRepository;
+    private final DeletionPurger purger;
+    private final ItemBookingSummaryService summaryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
 
     private User user;
     private User user2;
@@ -86,6 +110,32 @@ class UserServiceIntegrationTest {
         assertThrows(SameEmailException.class, () -> service.createUser(userDto));
     }
 
+    @Test
+    void testCreateUserWithEmailUnknownToFilter() {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('Donkey', 'unfiltered@swamp.com')");
+
+        UserDTO userDto = UserDTO.builder()
+                .name("Another Donkey")
+                .email("Unfiltered@Swamp.com")
+                .build();
+
+        assertThrows(SameEmailException.class, () -> service.createUser(userDto));
+    }
+
+    @Test
+    void testCreateUserWithDuplicateEmailInAnotherCase() {
+        service.createUser(UserDTO.builder()
+                .name("Donkey")
+                .email("donkey@swamp.com")
+                .build());
+
+        UserDTO userDto = UserDTO.builder()
+                .name("Another Donkey")
+                .email("Donkey@Swamp.com")
+                .build();
+
+        assertThrows(SameEmailException.class, () -> service.createUser(userDto));
+    }
 
     @Test
     void testUpdateUser() {
@@ -142,6 +192,157 @@ class UserServiceIntegrationTest {
         assertThrows(NotFoundException.class, () -> service.userById(user.getId()));
     }
 
+    @Test
+    void testCachedUserIsEvictedOnUpdateAndDelete() {
+        repository.save(user);
+        service.userById(user.getId());
+
+        service.updateUser(user.getId(), UserDTO.builder().name("Lord Farquaad").build());
+        assertThat(service.userById(user.getId()).getName(), is("Lord Farquaad"));
+
+        service.deleteUser(user.getId());
+        assertThrows(NotFoundException.class, () -> service.userById(user.getId()));
+    }
+
+    @Test
+    void testDeletedUserIsHiddenAndPurgedInBatches() {
+        repository.save(user);
+        repository.save(user2);
+        Item item = itemRepository.save(Item.builder()
+                .owner(user)
+                .name("Swamp")
+                .description("Big swamp")
+                .available(true)
+                .build());
+        Booking booking = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .status(StatusBook.APPROVED)
+                .startDate(LocalDateTime.now().minusDays(2))
+                .endDate(LocalDateTime.now().minusDays(1))
+                .build());
+        commentRepository.save(Comment.builder()
+                .item(item)
+                .authorName(user2.getName())
+                .text("Nice swamp")
+                .build());
+
+        service.deleteUser(user.getId());
+
+        assertThat(itemRepository.findById(item.getId()).isPresent(), is(false));
+        assertThat(bookingRepository.findById(booking.getId()).isPresent(), is(false));
+        assertThat(bookingRepository.findByBookerId(user2.getId(), Sort.unsorted()), empty());
+        assertThat(countRows("users", user.getId()), is(1L));
+
+        purger.purge();
+
+        assertThat(countRows("users", user.getId()), is(0L));
+        assertThat(countRows("items", item.getId()), is(0L));
+        assertThat(countRows("bookings", booking.getId()), is(0L));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comments WHERE item_id = ?", Long.class,
+                item.getId()), is(0L));
+        assertThat(countRows("users", user2.getId()), is(1L));
+        assertThat(meterRegistry.get("shareit.purge.pending").tag("entity", "users").gauge().value(), is(0.0));
+    }
+
+    @Test
+    void testRequestsOfDeletedUserAreHidden() {
+        repository.save(user);
+        repository.save(user2);
+        ItemRequest request = requestRepository.save(ItemRequest.builder()
+                .user(user)
+                .description("Need a swamp")
+                .build());
+        ItemRequest otherRequest = requestRepository.save(ItemRequest.builder()
+                .user(user2)
+                .description("Need a donkey")
+                .build());
+
+        service.deleteUser(user.getId());
+
+        assertThat(requestRepository.findById(request.getId()).isPresent(), is(false));
+        assertThat(requestRepository.findOpenIds(List.of(request.getId(), otherRequest.getId())),
+                contains(otherRequest.getId()));
+        assertThat(jdbcTemplate.queryForObject("SELECT hidden FROM requests WHERE request_id = ?", Boolean.class,
+                request.getId()), is(true));
+    }
+
+    @Test
+    void testPurgedBookingKeepsOtherBookingInItemSummary() {
+        repository.save(user);
+        repository.save(user2);
+        User user3 = repository.save(User.builder().name("Donkey").email("donkey@gmail.com").build());
+        Item item = itemRepository.save(Item.builder()
+                .owner(user)
+                .name("Swamp")
+                .description("Big swamp")
+                .available(true)
+                .build());
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .status(StatusBook.APPROVED)
+                .startDate(LocalDateTime.now().minusDays(2))
+                .endDate(LocalDateTime.now().minusDays(1))
+                .build());
+        Booking next = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user3)
+                .status(StatusBook.APPROVED)
+                .startDate(LocalDateTime.now().plusDays(1))
+                .endDate(LocalDateTime.now().plusDays(2))
+                .build());
+        summaryService.refresh(item.getId());
+
+        service.deleteUser(user2.getId());
+        purger.purge();
+
+        ItemBookingSummary summary = summaryService.findForItems(List.of(item.getId())).get(item.getId());
+        assertThat(summary.getLastBooking(), nullValue());
+        assertThat(summary.getNextBooking().getBookingId(), is(next.getId()));
+    }
+
+    @Test
+    void testDeletedBookerIsRemovedFromItemSummary() {
+        repository.save(user);
+        repository.save(user2);
+        Item item = itemRepository.save(Item.builder()
+                .owner(user)
+                .name("Swamp")
+                .description("Big swamp")
+                .available(true)
+                .build());
+        Booking booking = bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(user2)
+                .status(StatusBook.APPROVED)
+                .startDate(LocalDateTime.now().plusDays(1))
+                .endDate(LocalDateTime.now().plusDays(2))
+                .build());
+        summaryService.refresh(item.getId());
+
+        service.deleteUser(user2.getId());
+
+        ItemBookingSummary summary = summaryService.findForItems(List.of(item.getId())).get(item.getId());
+        assertThat(summary.getNextBooking(), nullValue());
+        assertThat(bookingRepository.findById(booking.getId()).isPresent(), is(false));
+        assertThat(jdbcTemplate.queryForObject("SELECT hidden FROM bookings WHERE id = ?", Boolean.class,
+                booking.getId()), is(true));
+    }
+
+    @Test
+    void testEmailOfDeletedUserCanBeReused() {
+        repository.save(user);
+        service.deleteUser(user.getId());
+
+        UserDTO created = service.createUser(UserDTO.builder()
+                .name("New Shrek")
+                .email(user.getEmail())
+                .build());
+
+        assertThat(created.getId(), not(user.getId()));
+    }
+
     @Test
     void testDeleteUserNotFound() {
         service.deleteUser(999L);
@@ -152,16 +353,32 @@ class UserServiceIntegrationTest {
         repository.save(user);
         repository.save(user2);
 
-        List<UserDTO> users = service.allUsers();
+        List<UserDTO> users = service.allUsers(0L, 100);
 
         assertThat(users, hasSize(2));
         assertThat(users.stream().map(UserDTO::getName).toList(),
                 containsInAnyOrder("Shrek", "Fiona"));
     }
 
+    @Test
+    void testGetAllUsersKeysetPages() {
+        repository.save(user);
+        repository.save(user2);
+        User user3 = repository.save(User.builder()
+                .name("Donkey")
+                .email("donkey@swamp.com")
+                .build());
+
+        List<UserDTO> firstPage = service.allUsers(user.getId() - 1, 2);
+        List<UserDTO> secondPage = service.allUsers(firstPage.getLast().getId(), 2);
+
+        assertThat(firstPage.stream().map(UserDTO::getId).toList(), contains(user.getId(), user2.getId()));
+        assertThat(secondPage.stream().map(UserDTO::getId).toList(), contains(user3.getId()));
+    }
+
     @Test
     void testGetAllUsersEmpty() {
-        List<UserDTO> users = service.allUsers();
+        List<UserDTO> users = service.allUsers(0L, 100);
 
         assertThat(users, empty());
     }
@@ -202,4 +419,8 @@ class UserServiceIntegrationTest {
         assertThat(retrieved.getName(), is("Test User"));
         assertThat(retrieved.getEmail(), is("test@test.com"));
     }
+
+    private long countRows(String table, long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Long.class, id);
+    }
 }
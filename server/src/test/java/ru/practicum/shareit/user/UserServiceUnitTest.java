@@ -6,14 +6,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.SameEmailException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemBookingSummaryService;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.request.service.RequestFeed;
 import ru.practicum.shareit.user.dto.UserDTO;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.EmailBloomFilter;
+import ru.practicum.shareit.user.service.UserCache;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.user.service.UserServiceIml;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -27,7 +40,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class UserServiceUnitTest {
     @Mock
     private UserRepository repository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ItemBookingSummaryService summaryService;
+    @Mock
+    private RequestRepository requestRepository;
     private UserService service;
+    private EmailBloomFilter emailFilter;
 
     private User user;
     private User user2;
@@ -35,7 +59,10 @@ class UserServiceUnitTest {
 
     @BeforeEach
     void before() {
-        service = new UserServiceIml(repository);
+        emailFilter = new EmailBloomFilter(repository, 1000, 0.01, 100);
+        service = new UserServiceIml(repository, emailFilter, new UserCache(repository, 100, 60_000), itemRepository,
+                new RequestFeed(100, 60_000), bookingRepository,
+                new BookingCalendar(bookingRepository, transactionManager, 100), summaryService, requestRepository);
         user = User.builder()
                 .id(1L)
                 .name("Shrek")
@@ -56,26 +83,41 @@ class UserServiceUnitTest {
 
     @Test
     void testGetAllUsers() {
-        Mockito.when(repository.findAll())
+        Mockito.when(repository.findByIdGreaterThanOrderById(0L, Limit.of(100)))
                 .thenReturn(Arrays.asList(user, user2));
 
-        List<UserDTO> users = service.allUsers();
+        List<UserDTO> users = service.allUsers(0L, 100);
 
         assertThat(users, hasSize(2));
         assertThat(users.get(0).getName(), is("Shrek"));
         assertThat(users.get(1).getName(), is("Fiona"));
-        Mockito.verify(repository).findAll();
+        Mockito.verify(repository).findByIdGreaterThanOrderById(0L, Limit.of(100));
+    }
+
+    @Test
+    void testGetAllUsersPageSizeIsCapped() {
+        Mockito.when(repository.findByIdGreaterThanOrderById(5L, Limit.of(1000)))
+                .thenReturn(List.of());
+
+        service.allUsers(5L, 100_000);
+
+        Mockito.verify(repository).findByIdGreaterThanOrderById(5L, Limit.of(1000));
+    }
+
+    @Test
+    void testGetAllUsersInvalidSize() {
+        assertThrows(BadRequestException.class, () -> service.allUsers(0L, 0));
     }
 
     @Test
     void testGetAllUsersEmpty() {
-        Mockito.when(repository.findAll())
+        Mockito.when(repository.findByIdGreaterThanOrderById(0L, Limit.of(100)))
                 .thenReturn(List.of());
 
-        List<UserDTO> users = service.allUsers();
+        List<UserDTO> users = service.allUsers(0L, 100);
 
         assertThat(users, empty());
-        Mockito.verify(repository).findAll();
+        Mockito.verify(repository).findByIdGreaterThanOrderById(0L, Limit.of(100));
     }
 
     @Test
@@ -91,6 +133,22 @@ class UserServiceUnitTest {
         Mockito.verify(repository).findById(1L);
     }
 
+    @Test
+    void testCachedUserIsReloadedAfterTtl() {
+        service = new UserServiceIml(repository, emailFilter, new UserCache(repository, 100, 0), itemRepository,
+                new RequestFeed(100, 60_000), bookingRepository,
+                new BookingCalendar(bookingRepository, transactionManager, 100), summaryService, requestRepository);
+        Mockito.when(repository.findById(1L))
+                .thenReturn(Optional.of(user))
+                .thenReturn(Optional.of(User.builder().id(1L).name("Fiona").build()));
+
+        service.userById(1L);
+        UserDTO reloaded = service.userById(1L);
+
+        assertThat(reloaded.getName(), is("Fiona"));
+        Mockito.verify(repository, Mockito.times(2)).findById(1L);
+    }
+
     @Test
     void testGetUserByIdNotFound() {
         Mockito.when(repository.findById(999L))
@@ -102,9 +160,7 @@ class UserServiceUnitTest {
 
     @Test
     void testCreateUser() {
-        Mockito.when(repository.existsByEmail("donkey@swamp.com"))
-                .thenReturn(false);
-        Mockito.when(repository.save(Mockito.any(User.class)))
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
                 .thenAnswer(invocation -> {
                     User userToSave = invocation.getArgument(0);
                     userToSave.setId(3L);
@@ -116,18 +172,38 @@ class UserServiceUnitTest {
         assertThat(result.getId(), is(3L));
         assertThat(result.getName(), is("Donkey"));
         assertThat(result.getEmail(), is("donkey@swamp.com"));
-        Mockito.verify(repository).existsByEmail("donkey@swamp.com");
-        Mockito.verify(repository).save(Mockito.any(User.class));
+        assertThat(emailFilter.mightContain("Donkey@Swamp.com"), is(true));
+        Mockito.verify(repository, Mockito.never()).existsByEmailIgnoreCase(Mockito.anyString());
+        Mockito.verify(repository).saveAndFlush(Mockito.any(User.class));
     }
 
     @Test
     void testCreateUserWithDuplicateEmail() {
-        Mockito.when(repository.existsByEmail("donkey@swamp.com"))
+        emailFilter.put("DONKEY@swamp.com");
+        Mockito.when(repository.existsByEmailIgnoreCase("donkey@swamp.com"))
                 .thenReturn(true);
 
         assertThrows(SameEmailException.class, () -> service.createUser(userDTO));
-        Mockito.verify(repository).existsByEmail("donkey@swamp.com");
-        Mockito.verify(repository, Mockito.never()).save(Mockito.any(User.class));
+        Mockito.verify(repository).existsByEmailIgnoreCase("donkey@swamp.com");
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any(User.class));
+    }
+
+    @Test
+    void testCreateUserWithEmailConflictMissedByFilter() {
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("insert",
+                        new RuntimeException("Unique index violation: USERS_EMAIL_LOWER_UQ")));
+
+        assertThrows(SameEmailException.class, () -> service.createUser(userDTO));
+    }
+
+    @Test
+    void testCreateUserOtherConstraintViolationIsNotEmailConflict() {
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("insert",
+                        new RuntimeException("NULL not allowed for column NAME")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.createUser(userDTO));
     }
 
     @Test
@@ -137,20 +213,18 @@ class UserServiceUnitTest {
                 .email("updated@email.com")
                 .build();
 
-        Mockito.when(repository.existsByEmail("updated@email.com"))
-                .thenReturn(false);
         Mockito.when(repository.findById(1L))
                 .thenReturn(Optional.of(user));
-        Mockito.when(repository.save(Mockito.any(User.class)))
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
                 .thenReturn(user);
 
         UserDTO result = service.updateUser(1L, updateDto);
 
         assertThat(result.getName(), is("Updated Shrek"));
         assertThat(result.getEmail(), is("updated@email.com"));
-        Mockito.verify(repository).existsByEmail("updated@email.com");
+        Mockito.verify(repository, Mockito.never()).existsByEmailIgnoreCase(Mockito.anyString());
         Mockito.verify(repository).findById(1L);
-        Mockito.verify(repository).save(Mockito.any(User.class));
+        Mockito.verify(repository).saveAndFlush(Mockito.any(User.class));
     }
 
     @Test
@@ -161,16 +235,16 @@ class UserServiceUnitTest {
 
         Mockito.when(repository.findById(1L))
                 .thenReturn(Optional.of(user));
-        Mockito.when(repository.save(Mockito.any(User.class)))
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
                 .thenReturn(user);
 
         UserDTO result = service.updateUser(1L, updateDto);
 
         assertThat(result.getName(), is("Updated Shrek"));
         assertThat(result.getEmail(), is("shrekIsLove@gmail.com"));
-        Mockito.verify(repository, Mockito.never()).existsByEmail(Mockito.anyString());
+        Mockito.verify(repository, Mockito.never()).existsByEmailIgnoreCase(Mockito.anyString());
         Mockito.verify(repository).findById(1L);
-        Mockito.verify(repository).save(Mockito.any(User.class));
+        Mockito.verify(repository).saveAndFlush(Mockito.any(User.class));
     }
 
     @Test
@@ -179,20 +253,18 @@ class UserServiceUnitTest {
                 .email("updated@email.com")
                 .build();
 
-        Mockito.when(repository.existsByEmail("updated@email.com"))
-                .thenReturn(false);
         Mockito.when(repository.findById(1L))
                 .thenReturn(Optional.of(user));
-        Mockito.when(repository.save(Mockito.any(User.class)))
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
                 .thenReturn(user);
 
         UserDTO result = service.updateUser(1L, updateDto);
 
         assertThat(result.getEmail(), is("updated@email.com"));
         assertThat(result.getName(), is("Shrek"));
-        Mockito.verify(repository).existsByEmail("updated@email.com");
+        Mockito.verify(repository, Mockito.never()).existsByEmailIgnoreCase(Mockito.anyString());
         Mockito.verify(repository).findById(1L);
-        Mockito.verify(repository).save(Mockito.any(User.class));
+        Mockito.verify(repository).saveAndFlush(Mockito.any(User.class));
     }
 
     @Test
@@ -201,13 +273,32 @@ class UserServiceUnitTest {
                 .email("fiona@gmail.com")
                 .build();
 
-        Mockito.when(repository.existsByEmail("fiona@gmail.com"))
+        emailFilter.put("fiona@gmail.com");
+        Mockito.when(repository.findById(1L))
+                .thenReturn(Optional.of(user));
+        Mockito.when(repository.existsByEmailIgnoreCase("fiona@gmail.com"))
                 .thenReturn(true);
 
         assertThrows(SameEmailException.class, () -> service.updateUser(1L, updateDto));
-        Mockito.verify(repository).existsByEmail("fiona@gmail.com");
-        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
-        Mockito.verify(repository, Mockito.never()).save(Mockito.any(User.class));
+        Mockito.verify(repository).existsByEmailIgnoreCase("fiona@gmail.com");
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any(User.class));
+    }
+
+    @Test
+    void testUpdateUserSameEmailSkipsCheck() {
+        emailFilter.put(user.getEmail());
+        UserDTO updateDto = UserDTO.builder()
+                .email("SHREKisLove@gmail.com")
+                .build();
+
+        Mockito.when(repository.findById(1L))
+                .thenReturn(Optional.of(user));
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
+                .thenReturn(user);
+
+        service.updateUser(1L, updateDto);
+
+        Mockito.verify(repository, Mockito.never()).existsByEmailIgnoreCase(Mockito.anyString());
     }
 
     @Test
@@ -221,15 +312,30 @@ class UserServiceUnitTest {
 
         assertThrows(NotFoundException.class, () -> service.updateUser(999L, updateDto));
         Mockito.verify(repository).findById(999L);
-        Mockito.verify(repository, Mockito.never()).save(Mockito.any(User.class));
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any(User.class));
     }
 
     @Test
     void testDeleteUser() {
+        Mockito.when(repository.markDeleted(Mockito.eq(333L), Mockito.any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        service.deleteUser(333L);
+
+        Mockito.verify(itemRepository).markDeletedByOwner(Mockito.eq(333L), Mockito.any(LocalDateTime.class));
+        Mockito.verify(bookingRepository).hideByUserId(333L);
+        Mockito.verify(requestRepository).hideByUserId(333L);
+        Mockito.verify(summaryService).refreshForBooker(333L);
+        Mockito.verify(repository, Mockito.never()).deleteById(Mockito.anyLong());
+    }
+
+    @Test
+    void testDeleteMissingUserDoesNotTouchItems() {
         service.deleteUser(333L);
 
-        Mockito.verify(repository, Mockito.times(1))
-                .deleteById(333L);
+        Mockito.verify(itemRepository, Mockito.never()).markDeletedByOwner(Mockito.anyLong(), Mockito.any());
+        Mockito.verify(bookingRepository, Mockito.never()).hideByUserId(Mockito.anyLong());
+        Mockito.verify(requestRepository, Mockito.never()).hideByUserId(Mockito.anyLong());
     }
 
     @Test
@@ -239,9 +345,7 @@ class UserServiceUnitTest {
                 .email(null)
                 .build();
 
-        Mockito.when(repository.existsByEmail(null))
-                .thenReturn(false);
-        Mockito.when(repository.save(Mockito.any(User.class)))
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
                 .thenAnswer(invocation -> {
                     User userToSave = invocation.getArgument(0);
                     userToSave.setId(4L);
@@ -253,8 +357,8 @@ class UserServiceUnitTest {
         assertThat(result.getId(), is(4L));
         assertThat(result.getName(), nullValue());
         assertThat(result.getEmail(), nullValue());
-        Mockito.verify(repository).existsByEmail(null);
-        Mockito.verify(repository).save(Mockito.any(User.class));
+        Mockito.verify(repository, Mockito.never()).existsByEmailIgnoreCase(Mockito.any());
+        Mockito.verify(repository).saveAndFlush(Mockito.any(User.class));
     }
 
     @Test
@@ -263,15 +367,15 @@ class UserServiceUnitTest {
 
         Mockito.when(repository.findById(1L))
                 .thenReturn(Optional.of(user));
-        Mockito.when(repository.save(Mockito.any(User.class)))
+        Mockito.when(repository.saveAndFlush(Mockito.any(User.class)))
                 .thenReturn(user);
 
         UserDTO result = service.updateUser(1L, emptyDto);
 
         assertThat(result.getName(), is("Shrek"));
         assertThat(result.getEmail(), is("shrekIsLove@gmail.com"));
-        Mockito.verify(repository, Mockito.never()).existsByEmail(Mockito.anyString());
+        Mockito.verify(repository, Mockito.never()).existsByEmailIgnoreCase(Mockito.anyString());
         Mockito.verify(repository).findById(1L);
-        Mockito.verify(repository).save(Mockito.any(User.class));
+        Mockito.verify(repository).saveAndFlush(Mockito.any(User.class));
     }
 }